@@ -28,6 +28,10 @@ import me.hsgamer.gamesinthebox.manager.GameManager;
 import me.hsgamer.gamesinthebox.manager.GamePickerManager;
 import me.hsgamer.gamesinthebox.manager.PlannerManager;
 import me.hsgamer.gamesinthebox.manager.PluginExpansionManager;
+import me.hsgamer.gamesinthebox.util.BlockHandlerUtil;
+import me.hsgamer.gamesinthebox.util.ClockUtil;
+import me.hsgamer.gamesinthebox.util.PlayerNameUtil;
+import me.hsgamer.gamesinthebox.util.TimerWheel;
 import me.hsgamer.gamesinthebox.util.UpdateUtil;
 import me.hsgamer.hscore.bukkit.baseplugin.BasePlugin;
 import me.hsgamer.hscore.bukkit.config.BukkitConfig;
@@ -43,6 +47,7 @@ import org.bstats.bukkit.Metrics;
 import org.bstats.charts.AdvancedPie;
 import org.bukkit.Bukkit;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -71,6 +76,8 @@ public final class GamesInTheBox extends BasePlugin {
     private final GamePickerManager gamePickerManager = new GamePickerManager();
     private final PlannerManager plannerManager = new PlannerManager(this);
     private final PluginExpansionManager expansionManager = new PluginExpansionManager(this);
+    private final TimerWheel timerWheel = new TimerWheel(this);
+    private PlaceholderHook placeholderHook;
 
     @Override
     public void load() {
@@ -79,6 +86,9 @@ public final class GamesInTheBox extends BasePlugin {
 
     @Override
     public void enable() {
+        ClockUtil.init(this);
+        timerWheel.start();
+        PlayerNameUtil.init(this);
         plannerManager.init();
         expansionManager.loadExpansions();
 
@@ -86,7 +96,8 @@ public final class GamesInTheBox extends BasePlugin {
         registerCommand(new EditorCommand(this));
 
         if (Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI")) {
-            new PlaceholderHook(this).register();
+            placeholderHook = new PlaceholderHook(this);
+            placeholderHook.register();
         }
 
         Metrics metrics = new Metrics(this, 18581);
@@ -101,6 +112,7 @@ public final class GamesInTheBox extends BasePlugin {
     public void postEnable() {
         expansionManager.enableExpansions();
         plannerManager.postInit();
+        BlockHandlerUtil.startAdaptive(this);
 
         UpdateUtil.notifyUpdate(this, "GamesInTheBox-MC/GamesInTheBox");
 
@@ -136,9 +148,13 @@ public final class GamesInTheBox extends BasePlugin {
 
     @Override
     public void disable() {
+        BlockHandlerUtil.stopAdaptive();
         expansionManager.disableExpansions();
         plannerManager.clear();
         expansionManager.clearExpansions();
+        timerWheel.stop();
+        PlayerNameUtil.clear();
+        ClockUtil.clear();
     }
 
     @Override
@@ -205,4 +221,24 @@ public final class GamesInTheBox extends BasePlugin {
     public PluginExpansionManager getExpansionManager() {
         return expansionManager;
     }
+
+    /**
+     * Get the timer wheel that runs the repeating tasks of the plugin
+     *
+     * @return the timer wheel
+     */
+    @NotNull
+    public TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    /**
+     * Get the hook for PlaceholderAPI
+     *
+     * @return the hook, or null if PlaceholderAPI is not enabled
+     */
+    @Nullable
+    public PlaceholderHook getPlaceholderHook() {
+        return placeholderHook;
+    }
 }
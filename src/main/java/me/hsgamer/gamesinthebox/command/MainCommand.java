@@ -40,6 +40,7 @@ public final class MainCommand extends Command {
         subCommandManager.registerSubcommand(new ForcePickCommand(plugin));
         subCommandManager.registerSubcommand(new EndCommand(plugin));
         subCommandManager.registerSubcommand(new ExpansionCommand(plugin));
+        subCommandManager.registerSubcommand(new StatusCommand(plugin));
     }
 
     @Override
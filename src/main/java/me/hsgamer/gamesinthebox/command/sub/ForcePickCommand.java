@@ -49,7 +49,7 @@ public final class ForcePickCommand extends SubCommand {
         }
         Arena planner = plannerOptional.get();
         GamePickerFeature pickFeature = planner.getFeature(GamePickerFeature.class);
-        if (pickFeature.getGamePicker().forcePick()) {
+        if (pickFeature.forcePick()) {
             MessageUtils.sendMessage(sender, plugin.getMessageConfig().getSuccess());
         } else {
             MessageUtils.sendMessage(sender, plugin.getMessageConfig().getPlannerCannotForcePick());
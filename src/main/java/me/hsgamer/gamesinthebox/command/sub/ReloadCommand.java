@@ -19,6 +19,7 @@ import me.hsgamer.gamesinthebox.GamesInTheBox;
 import me.hsgamer.gamesinthebox.Permissions;
 import me.hsgamer.gamesinthebox.expansion.extra.Reloadable;
 import me.hsgamer.gamesinthebox.planner.feature.GlobalPlannerConfigFeature;
+import me.hsgamer.gamesinthebox.util.BlockHandlerUtil;
 import me.hsgamer.hscore.bukkit.command.sub.SubCommand;
 import me.hsgamer.hscore.bukkit.utils.MessageUtils;
 import me.hsgamer.minigamecore.base.Arena;
@@ -40,6 +41,7 @@ public final class ReloadCommand extends SubCommand {
     public void onSubCommand(@NotNull CommandSender sender, @NotNull String label, @NotNull String... args) {
         plugin.getMainConfig().reloadConfig();
         plugin.getMessageConfig().reloadConfig();
+        BlockHandlerUtil.startAdaptive(plugin);
         plugin.getGameManager().callClear();
         plugin.getExpansionManager().call(Reloadable.class, Reloadable::onReload);
         plugin.getGameManager().callInit();
@@ -0,0 +1,70 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.command.sub;
+
+import me.hsgamer.gamesinthebox.GamesInTheBox;
+import me.hsgamer.gamesinthebox.Permissions;
+import me.hsgamer.gamesinthebox.hook.PlaceholderHook;
+import me.hsgamer.gamesinthebox.util.BlockHandlerUtil;
+import me.hsgamer.gamesinthebox.util.TimerWheel;
+import me.hsgamer.hscore.bukkit.command.sub.SubCommand;
+import me.hsgamer.hscore.bukkit.utils.MessageUtils;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The command to show the status of the plugin
+ */
+public final class StatusCommand extends SubCommand {
+    private final GamesInTheBox plugin;
+
+    public StatusCommand(GamesInTheBox plugin) {
+        super("status", "Show the status of the plugin", "/<label> status", Permissions.STATUS.getName(), true);
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void onSubCommand(@NotNull CommandSender sender, @NotNull String label, @NotNull String... args) {
+        MessageUtils.sendMessage(sender, "&eBlock Handler: &f" + BlockHandlerUtil.getBlockHandler().getClass().getSimpleName());
+        String blocksPerTickMode;
+        if (BlockHandlerUtil.isAdaptiveRunning()) {
+            blocksPerTickMode = " &7(adaptive)";
+        } else if (plugin.getMainConfig().isBlockUtilAdaptiveEnabled() && !BlockHandlerUtil.isAdaptiveSupported()) {
+            blocksPerTickMode = " &7(fixed, adaptive is not supported on Folia)";
+        } else {
+            blocksPerTickMode = "";
+        }
+        MessageUtils.sendMessage(sender, "&eBlocks Per Tick: &f" + BlockHandlerUtil.getEffectiveBlocksPerTick() + blocksPerTickMode);
+        if (BlockHandlerUtil.isAdaptiveRunning()) {
+            MessageUtils.sendMessage(sender, "&eAverage Tick Time: &f" + String.format(Locale.ROOT, "%.2f", BlockHandlerUtil.getAverageTickTime()) + "ms");
+        }
+        PlaceholderHook placeholderHook = plugin.getPlaceholderHook();
+        if (placeholderHook != null) {
+            MessageUtils.sendMessage(sender, "&ePlaceholder Cache: &f" + placeholderHook.getHitCount() + " hits, " + placeholderHook.getMissCount() + " misses");
+        }
+        List<TimerWheel.Handle> handles = plugin.getTimerWheel().getHandles();
+        MessageUtils.sendMessage(sender, "&eScheduled Tasks: &f" + handles.size());
+        for (TimerWheel.Handle handle : handles) {
+            long runCount = handle.getRunCount();
+            double average = runCount == 0 ? 0 : handle.getTotalNanos() / (double) runCount / 1_000_000D;
+            double max = handle.getMaxNanos() / 1_000_000D;
+            MessageUtils.sendMessage(sender, "&7- &f" + handle.getName() + "&7: " + runCount + " runs, " + String.format(Locale.ROOT, "%.3f", average) + "ms avg, " + String.format(Locale.ROOT, "%.3f", max) + "ms max, " + handle.getSlowRunCount() + " slow, " + handle.getSkippedRunCount() + " skipped");
+        }
+    }
+}
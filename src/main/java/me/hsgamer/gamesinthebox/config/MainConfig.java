@@ -44,6 +44,39 @@ public interface MainConfig {
         return true;
     }
 
+    /**
+     * Check if the idle planner should sleep until the next pick time of the game picker
+     *
+     * @return true if it should
+     */
+    @ConfigPath({"planner", "sleep-when-idle"})
+    @Comment("Should the idle planner skip its ticks until the next pick time of the game picker ?")
+    default boolean isPlannerSleepWhenIdle() {
+        return true;
+    }
+
+    /**
+     * Get the time in milliseconds to cache the resolved placeholders
+     *
+     * @return the cache time, 0 to disable the cache, or a negative number to use the interval of the planner
+     */
+    @ConfigPath({"placeholder", "cache-time"})
+    @Comment("The time in milliseconds to cache the resolved placeholders (0 to disable, -1 for the planner interval)")
+    default long getPlaceholderCacheTime() {
+        return -1L;
+    }
+
+    /**
+     * Get the maximum amount of reward commands to dispatch per tick
+     *
+     * @return the commands-per-tick
+     */
+    @ConfigPath({"reward", "commands-per-tick"})
+    @Comment("The maximum amount of reward commands to dispatch per tick")
+    default int getRewardCommandsPerTick() {
+        return 20;
+    }
+
     /**
      * Get the blocks-per-tick for BlockUtil
      *
@@ -88,6 +121,105 @@ public interface MainConfig {
         return true;
     }
 
+    /**
+     * Check if BlockUtil should adjust the blocks-per-tick by the tick time
+     *
+     * @return true if it should
+     */
+    @ConfigPath({"block-util", "adaptive", "enabled"})
+    @Comment("Should the plugin adjust the blocks-per-tick by the tick time of the server ? This is not supported on Folia")
+    default boolean isBlockUtilAdaptiveEnabled() {
+        return false;
+    }
+
+    /**
+     * Get the minimum blocks-per-tick of the adaptive mode
+     *
+     * @return the minimum blocks-per-tick
+     */
+    @ConfigPath({"block-util", "adaptive", "min-blocks-per-tick"})
+    @Comment("The minimum amount of blocks to process per tick in the adaptive mode")
+    default int getBlockUtilAdaptiveMinBlocksPerTick() {
+        return 10;
+    }
+
+    /**
+     * Get the maximum blocks-per-tick of the adaptive mode
+     *
+     * @return the maximum blocks-per-tick
+     */
+    @ConfigPath({"block-util", "adaptive", "max-blocks-per-tick"})
+    @Comment("The maximum amount of blocks to process per tick in the adaptive mode")
+    default int getBlockUtilAdaptiveMaxBlocksPerTick() {
+        return 500;
+    }
+
+    /**
+     * Get the maximum tick time of the adaptive mode
+     *
+     * @return the maximum tick time in milliseconds
+     */
+    @ConfigPath({"block-util", "adaptive", "max-tick-time"})
+    @Comment("The average tick time (MSPT, in milliseconds) above which the adaptive mode reduces the blocks-per-tick. Keep it below 50 to slow down before the server starts lagging")
+    default double getBlockUtilAdaptiveMaxTickTime() {
+        return 40.0;
+    }
+
+    /**
+     * Get the amount of blocks to read per tick when capturing a block snapshot
+     *
+     * @return the amount of blocks
+     */
+    @ConfigPath({"block-snapshot", "capture-blocks-per-tick"})
+    @Comment("The amount of blocks to read per tick in each chunk when capturing the snapshot of an arena")
+    default int getBlockSnapshotCaptureBlocksPerTick() {
+        return 4096;
+    }
+
+    /**
+     * Check if the clock should be driven by the server ticks instead of the system time
+     *
+     * @return true if it should
+     */
+    @ConfigPath({"clock", "use-server-ticks"})
+    @Comment("Should the timing-sensitive features count the server ticks instead of the system time ? (Requires a restart)")
+    default boolean isClockUseServerTicks() {
+        return false;
+    }
+
+    /**
+     * Get the maximum amount of missed ticks to catch up at once
+     *
+     * @return the max catch-up ticks
+     */
+    @ConfigPath({"clock", "max-catch-up-ticks"})
+    @Comment("The maximum amount of missed ticks to catch up at once, 0 for unlimited (Requires a restart)")
+    default int getClockMaxCatchUpTicks() {
+        return 0;
+    }
+
+    /**
+     * Get the maximum amount of player names to cache
+     *
+     * @return the cache size
+     */
+    @ConfigPath({"player-name", "cache-size"})
+    @Comment("The maximum amount of player names to cache (Requires a restart)")
+    default int getPlayerNameCacheSize() {
+        return 2048;
+    }
+
+    /**
+     * Get the time in milliseconds to remember the players that have no name
+     *
+     * @return the time in milliseconds
+     */
+    @ConfigPath({"player-name", "missing-cache-time"})
+    @Comment("The time in milliseconds to remember the players that have no name before looking them up again (Requires a restart)")
+    default long getPlayerNameMissingCacheTime() {
+        return 60000L;
+    }
+
     /**
      * Reload the config
      */
@@ -15,6 +15,7 @@
 */
 package me.hsgamer.gamesinthebox.game;
 
+import me.hsgamer.gamesinthebox.game.feature.ArenaTickFeature;
 import me.hsgamer.gamesinthebox.game.feature.GameConfigFeature;
 import me.hsgamer.gamesinthebox.planner.Planner;
 import me.hsgamer.hscore.common.StringReplacer;
@@ -32,6 +33,7 @@ import java.util.List;
  *     <li>{@link #getName()} will return the name of the arena with the planner name (e.g. "[planner]-[arena]")</li>
  *     <li>To get the name of the arena without the planner name, use {@link #getLocalName()}</li>
  *     <li>The arena provides {@link GameConfigFeature} to access the game settings</li>
+ *     <li>The arena is updated through {@link ArenaTickFeature}, on the {@link me.hsgamer.gamesinthebox.util.TimerWheel} if it is asynchronous</li>
  *     <li>{@link #getFeature(Class)} will get the {@link Feature} from both the {@link GameArena} and the {@link Planner} that the arena belongs to</li>
  * </ul>
  */
@@ -39,6 +41,7 @@ public abstract class GameArena extends HSCoreBukkitArena implements StringRepla
     private final String localName;
     private final Planner planner;
     private final Game game;
+    private ArenaTickFeature tickFeature;
 
     /**
      * Create a new game arena
@@ -85,6 +88,18 @@ public abstract class GameArena extends HSCoreBukkitArena implements StringRepla
         return localName;
     }
 
+    /**
+     * Check if the replacement query depends on the player.
+     * The values of the queries that do not depend on the player can be shared between the players.
+     * Override this method to mark the queries of the arena that do not depend on the player.
+     *
+     * @param query the query
+     * @return true if the query depends on the player
+     */
+    public boolean isPlayerScoped(@NotNull String query) {
+        return true;
+    }
+
     /**
      * Start the game.
      * This is mainly called by the {@link Planner}.
@@ -111,7 +126,19 @@ public abstract class GameArena extends HSCoreBukkitArena implements StringRepla
     @Override
     protected List<Feature> loadFeatures() {
         List<Feature> features = new ArrayList<>();
+        tickFeature = new ArenaTickFeature(this, super::run);
+        features.add(tickFeature);
         features.add(new GameConfigFeature(this));
         return features;
     }
+
+    @Override
+    public void run() {
+        ArenaTickFeature currentTickFeature = tickFeature;
+        if (currentTickFeature == null) {
+            super.run();
+        } else {
+            currentTickFeature.onSchedulerTick();
+        }
+    }
 }
@@ -0,0 +1,112 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.game.feature;
+
+import me.hsgamer.gamesinthebox.GamesInTheBox;
+import me.hsgamer.gamesinthebox.util.TimerWheel;
+import me.hsgamer.minigamecore.base.Feature;
+import me.hsgamer.minigamecore.bukkit.hscore.HSCoreBukkitArena;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The {@link Feature} that drives the updates of the arena.
+ * The updates of an asynchronous arena run on the {@link TimerWheel}, and its own scheduler task does nothing,
+ * while a synchronous arena keeps being updated by its own scheduler task.
+ * The updates can be paused while the arena has nothing to do, and resumed when it is needed again.
+ */
+public class ArenaTickFeature implements Feature {
+    private final HSCoreBukkitArena arena;
+    private final Runnable updater;
+    private volatile TimerWheel.Handle handle;
+    private volatile boolean paused = false;
+
+    /**
+     * Create a new {@link ArenaTickFeature}
+     *
+     * @param arena   the arena
+     * @param updater the update of the arena
+     */
+    public ArenaTickFeature(@NotNull HSCoreBukkitArena arena, @NotNull Runnable updater) {
+        this.arena = arena;
+        this.updater = updater;
+    }
+
+    @Override
+    public void postInit() {
+        if (arena.isAsync()) {
+            handle = JavaPlugin.getPlugin(GamesInTheBox.class).getTimerWheel().schedule("arena:" + arena.getName(), this::tick, arena.getDelay(), arena.getPeriod());
+        }
+    }
+
+    @Override
+    public void clear() {
+        TimerWheel.Handle currentHandle = handle;
+        handle = null;
+        if (currentHandle != null) {
+            currentHandle.cancel();
+        }
+        paused = false;
+    }
+
+    /**
+     * Called by the own scheduler task of the arena.
+     * This only updates the arena if it is not driven by the {@link TimerWheel}.
+     */
+    public void onSchedulerTick() {
+        if (handle == null) {
+            tick();
+        }
+    }
+
+    private void tick() {
+        if (!paused) {
+            updater.run();
+        }
+    }
+
+    /**
+     * Pause the updates of the arena
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Resume the updates of the arena
+     */
+    public void resume() {
+        paused = false;
+    }
+
+    /**
+     * Check if the updates of the arena are paused
+     *
+     * @return true if they are
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Check if the arena is driven by the {@link TimerWheel}
+     *
+     * @return true if it is
+     */
+    public boolean isOnTimerWheel() {
+        return handle != null;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.game.feature;
+
+import me.hsgamer.hscore.minecraft.block.box.BlockBox;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The tracker that reports the blocks changed by the players, the entities, the physics of the world and the plugin itself.
+ * The block events are listened once per tracker,
+ * and the changes made through {@link me.hsgamer.gamesinthebox.util.BlockHandlerUtil} are reported by {@link #notifyChanged(World, BlockBox)}.
+ * A changed position may be reported more than once, and a few positions around a moved block may also be reported.
+ */
+public class BlockChangeTracker implements Listener {
+    private static final Set<BlockChangeTracker> trackers = ConcurrentHashMap.newKeySet();
+    private final ChangeHandler changeHandler;
+
+    /**
+     * Create a new tracker
+     *
+     * @param changeHandler the handler of the changed positions
+     */
+    public BlockChangeTracker(@NotNull ChangeHandler changeHandler) {
+        this.changeHandler = changeHandler;
+    }
+
+    /**
+     * Report the blocks in the box that are changed by the plugin to all the registered trackers
+     *
+     * @param world    the world
+     * @param blockBox the changed box
+     */
+    public static void notifyChanged(@NotNull World world, @NotNull BlockBox blockBox) {
+        for (BlockChangeTracker tracker : trackers) {
+            tracker.changeHandler.onChange(world, blockBox);
+        }
+    }
+
+    /**
+     * Register the listener of the block events and the changes made by the plugin.
+     * This should be called on the main thread.
+     *
+     * @param plugin the plugin
+     */
+    public void register(@NotNull Plugin plugin) {
+        unregister();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        trackers.add(this);
+    }
+
+    /**
+     * Only listen to the changes made by the plugin
+     */
+    public void registerPluginChanges() {
+        trackers.add(this);
+    }
+
+    /**
+     * Unregister the listener
+     */
+    public void unregister() {
+        trackers.remove(this);
+        HandlerList.unregisterAll(this);
+    }
+
+    private void changed(Block block) {
+        changeHandler.onChange(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    private void changed(BlockState blockState) {
+        changeHandler.onChange(blockState.getWorld(), blockState.getX(), blockState.getY(), blockState.getZ());
+    }
+
+    private void moved(Block piston, Iterable<Block> blocks, BlockFace direction) {
+        changed(piston);
+        changed(piston.getRelative(direction));
+        changed(piston.getRelative(direction.getOppositeFace()));
+        for (Block block : blocks) {
+            changed(block);
+            changed(block.getRelative(direction));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBreak(BlockBreakEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlace(BlockPlaceEvent event) {
+        changed(event.getBlock());
+        if (event instanceof BlockMultiPlaceEvent) {
+            ((BlockMultiPlaceEvent) event).getReplacedBlockStates().forEach(this::changed);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBurn(BlockBurnEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onIgnite(BlockIgniteEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFade(BlockFadeEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onForm(BlockFormEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGrow(BlockGrowEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStructureGrow(StructureGrowEvent event) {
+        event.getBlocks().forEach(this::changed);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFromTo(BlockFromToEvent event) {
+        changed(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        moved(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        moved(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        changed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        changed(event.getBlock());
+        event.blockList().forEach(this::changed);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        event.blockList().forEach(this::changed);
+    }
+
+    /**
+     * The handler of the changed positions.
+     * The handler may be called on any thread that changes the blocks.
+     */
+    public interface ChangeHandler {
+        /**
+         * Called when the block at the position is changed
+         *
+         * @param world the world
+         * @param x     the x coordinate
+         * @param y     the y coordinate
+         * @param z     the z coordinate
+         */
+        void onChange(@NotNull World world, int x, int y, int z);
+
+        /**
+         * Called when the blocks in the box are changed by the plugin
+         *
+         * @param world    the world
+         * @param blockBox the box
+         */
+        default void onChange(@NotNull World world, @NotNull BlockBox blockBox) {
+            for (int x = blockBox.minX; x <= blockBox.maxX; x++) {
+                for (int z = blockBox.minZ; z <= blockBox.maxZ; z++) {
+                    for (int y = blockBox.minY; y <= blockBox.maxY; y++) {
+                        onChange(world, x, y, z);
+                    }
+                }
+            }
+        }
+    }
+}
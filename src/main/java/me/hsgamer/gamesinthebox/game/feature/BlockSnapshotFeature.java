@@ -0,0 +1,607 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.game.feature;
+
+import com.lewdev.probabilitylib.ProbabilityCollection;
+import io.github.projectunified.blockutil.api.BlockProcess;
+import me.hsgamer.gamesinthebox.GamesInTheBox;
+import me.hsgamer.gamesinthebox.util.BlockHandlerUtil;
+import me.hsgamer.gamesinthebox.util.TimerWheel;
+import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
+import me.hsgamer.hscore.minecraft.block.box.BlockBox;
+import me.hsgamer.minigamecore.base.Feature;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * The {@link Feature} that takes a snapshot of the blocks in the bounding box of the {@link BoundingFeature}
+ * and restores the changed blocks.
+ * The snapshot is palette-encoded with 2 bytes per block, either in memory or in a memory-mapped file.
+ * The changed positions are tracked as a dirty bit set by {@link #markDirty(int, int, int)},
+ * by the changes made through {@link BlockHandlerUtil} since the capture is started,
+ * and by the block events if {@link #trackBlockEvents(Plugin)} is called,
+ * so the restore only rewrites the blocks that were changed during the game.
+ * The capture reads at most {@link me.hsgamer.gamesinthebox.config.MainConfig#getBlockSnapshotCaptureBlocksPerTick()} blocks per tick in each chunk,
+ * and the restore places the blocks through the {@link io.github.projectunified.blockutil.api.BlockHandler}.
+ */
+public class BlockSnapshotFeature implements Feature {
+    private static final int MAX_RESTORE_PROCESSES = 16;
+    private final BoundingFeature boundingFeature;
+    private final File spillFile;
+    private final BitSet dirty = new BitSet();
+    private final BlockChangeTracker changeTracker = new BlockChangeTracker(new BlockChangeTracker.ChangeHandler() {
+        @Override
+        public void onChange(@NotNull World world, int x, int y, int z) {
+            if (world == boundingFeature.getWorld()) {
+                markDirty(x, y, z);
+            }
+        }
+
+        @Override
+        public void onChange(@NotNull World world, @NotNull BlockBox blockBox) {
+            if (world == boundingFeature.getWorld()) {
+                markDirty(blockBox);
+            }
+        }
+    });
+    private volatile Snapshot snapshot;
+    private volatile boolean captured = false;
+
+    /**
+     * Create a new feature that keeps the snapshot in memory
+     *
+     * @param boundingFeature the bounding feature
+     */
+    public BlockSnapshotFeature(@NotNull BoundingFeature boundingFeature) {
+        this(boundingFeature, null);
+    }
+
+    /**
+     * Create a new feature
+     *
+     * @param boundingFeature the bounding feature
+     * @param spillFile       the file to memory-map the snapshot, or null to keep the snapshot in memory
+     */
+    public BlockSnapshotFeature(@NotNull BoundingFeature boundingFeature, @Nullable File spillFile) {
+        this.boundingFeature = boundingFeature;
+        this.spillFile = spillFile;
+    }
+
+    @Override
+    public void clear() {
+        changeTracker.unregister();
+        Snapshot current = snapshot;
+        snapshot = null;
+        captured = false;
+        if (current != null) {
+            current.release();
+        }
+        synchronized (dirty) {
+            dirty.clear();
+        }
+        if (spillFile != null && spillFile.exists() && !spillFile.delete()) {
+            spillFile.deleteOnExit();
+        }
+    }
+
+    /**
+     * Register the listener to mark the blocks changed by the block events as dirty
+     *
+     * @param plugin the plugin
+     */
+    public void trackBlockEvents(@NotNull Plugin plugin) {
+        changeTracker.register(plugin);
+    }
+
+    /**
+     * Check if the snapshot is captured
+     *
+     * @return true if it is
+     */
+    public boolean isCaptured() {
+        return captured && snapshot != null;
+    }
+
+    /**
+     * Get the amount of the dirty positions
+     *
+     * @return the amount
+     */
+    public int getDirtyCount() {
+        synchronized (dirty) {
+            return dirty.cardinality();
+        }
+    }
+
+    /**
+     * Mark the position as dirty, so it will be restored
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     */
+    public void markDirty(int x, int y, int z) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        int index = current.indexOf(x, y, z);
+        if (index < 0) {
+            return;
+        }
+        synchronized (dirty) {
+            dirty.set(index);
+        }
+    }
+
+    /**
+     * Mark the block as dirty, so it will be restored
+     *
+     * @param block the block
+     */
+    public void markDirty(@NotNull Block block) {
+        if (block.getWorld() == boundingFeature.getWorld()) {
+            markDirty(block.getX(), block.getY(), block.getZ());
+        }
+    }
+
+    /**
+     * Mark the positions in the box as dirty, so they will be restored
+     *
+     * @param blockBox the box
+     */
+    public void markDirty(@NotNull BlockBox blockBox) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        int minX = Math.max(blockBox.minX, current.minX);
+        int minY = Math.max(blockBox.minY, current.minY);
+        int minZ = Math.max(blockBox.minZ, current.minZ);
+        int maxX = Math.min(blockBox.maxX, current.maxX);
+        int maxY = Math.min(blockBox.maxY, current.maxY);
+        int maxZ = Math.min(blockBox.maxZ, current.maxZ);
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            return;
+        }
+        synchronized (dirty) {
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    int from = current.indexOf(x, minY, z);
+                    dirty.set(from, from + maxY - minY + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark all the positions as dirty, so the whole bounding box will be restored
+     */
+    public void markAllDirty() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        synchronized (dirty) {
+            dirty.set(0, current.volume);
+        }
+    }
+
+    /**
+     * Capture the blocks in the bounding box.
+     * Each chunk is captured on its own region, with at most {@link me.hsgamer.gamesinthebox.config.MainConfig#getBlockSnapshotCaptureBlocksPerTick()} blocks per tick.
+     * The changes are tracked from the start of the capture, so a block changed in a chunk that is already captured is still restored.
+     *
+     * @return the future that is completed when the snapshot is captured
+     */
+    @NotNull
+    public CompletableFuture<Void> capture() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Snapshot oldSnapshot = snapshot;
+        snapshot = null;
+        captured = false;
+        if (oldSnapshot != null) {
+            oldSnapshot.release();
+        }
+        synchronized (dirty) {
+            dirty.clear();
+        }
+        Snapshot newSnapshot;
+        try {
+            newSnapshot = new Snapshot(boundingFeature.getWorld(), boundingFeature.getBlockBox(), spillFile);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        snapshot = newSnapshot;
+        changeTracker.registerPluginChanges();
+        List<int[]> chunks = newSnapshot.getChunks();
+        captureChunk(newSnapshot, chunks, 0, 0, future);
+        return future;
+    }
+
+    private void captureChunk(Snapshot newSnapshot, List<int[]> chunks, int chunkIndex, int offset, CompletableFuture<Void> future) {
+        if (newSnapshot.isReleased()) {
+            future.cancel(false);
+            return;
+        }
+        if (chunkIndex >= chunks.size()) {
+            if (snapshot == newSnapshot) {
+                captured = true;
+            }
+            future.complete(null);
+            return;
+        }
+        int[] chunk = chunks.get(chunkIndex);
+        int sizeZ = chunk[3] - chunk[2] + 1;
+        int columnVolume = (chunk[1] - chunk[0] + 1) * sizeZ * newSnapshot.sizeY;
+        Location location = new Location(newSnapshot.world, chunk[0], newSnapshot.minY, chunk[2]);
+        Scheduler.providingPlugin(BlockSnapshotFeature.class).sync().runLocationTask(location, () -> {
+            int blocksPerTick = JavaPlugin.getPlugin(GamesInTheBox.class).getMainConfig().getBlockSnapshotCaptureBlocksPerTick();
+            int end = Math.min(columnVolume, offset + Math.max(1, blocksPerTick));
+            try {
+                for (int i = offset; i < end; i++) {
+                    int column = i / newSnapshot.sizeY;
+                    int x = chunk[0] + column / sizeZ;
+                    int z = chunk[2] + column % sizeZ;
+                    int y = newSnapshot.minY + i % newSnapshot.sizeY;
+                    newSnapshot.set(x, y, z, newSnapshot.world.getBlockAt(x, y, z).getBlockData());
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            if (end < columnVolume) {
+                captureChunk(newSnapshot, chunks, chunkIndex, end, future);
+            } else {
+                captureChunk(newSnapshot, chunks, chunkIndex + 1, 0, future);
+            }
+        });
+    }
+
+    /**
+     * Restore the dirty positions from the snapshot and clear the dirty bit set.
+     * The positions are restored chunk by chunk, as vertical runs of the same material placed by the {@link io.github.projectunified.blockutil.api.BlockHandler},
+     * and the blocks with a non-default state then get their exact state on their own region.
+     *
+     * @return the future of the amount of the restored blocks
+     */
+    @NotNull
+    public CompletableFuture<Integer> restore() {
+        Snapshot current = snapshot;
+        if (current == null || !captured) {
+            return CompletableFuture.completedFuture(0);
+        }
+        BitSet toRestore;
+        synchronized (dirty) {
+            toRestore = (BitSet) dirty.clone();
+            dirty.clear();
+        }
+        Map<Long, List<Integer>> chunkMap = new LinkedHashMap<>();
+        for (int index = toRestore.nextSetBit(0); index >= 0; index = toRestore.nextSetBit(index + 1)) {
+            long chunkKey = ((long) (current.xOf(index) >> 4) << 32) | ((current.zOf(index) >> 4) & 0xFFFFFFFFL);
+            chunkMap.computeIfAbsent(chunkKey, key -> new ArrayList<>()).add(index);
+        }
+        RestoreProcess process = new RestoreProcess(current, new ArrayList<>(chunkMap.values()));
+        process.start();
+        return process.future;
+    }
+
+    private static final class RestoreProcess {
+        private final Snapshot current;
+        private final List<List<Integer>> chunks;
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private final Deque<int[]> runs = new ArrayDeque<>();
+        private final List<Material> runMaterials = new ArrayList<>();
+        private final List<BlockProcess> processes = new ArrayList<>();
+        private final List<Integer> stateIndices = new ArrayList<>();
+        private int chunkIndex = 0;
+        private int restored = 0;
+        private boolean applyingStates = false;
+        private TimerWheel.Handle handle;
+
+        private RestoreProcess(Snapshot current, List<List<Integer>> chunks) {
+            this.current = current;
+            this.chunks = chunks;
+        }
+
+        private synchronized void start() {
+            if (chunks.isEmpty()) {
+                future.complete(0);
+                return;
+            }
+            handle = JavaPlugin.getPlugin(GamesInTheBox.class).getTimerWheel().schedule("block-restore", this::poll, 1L, 1L);
+        }
+
+        private synchronized void poll() {
+            if (future.isDone()) {
+                return;
+            }
+            if (current.isReleased()) {
+                processes.forEach(BlockProcess::cancel);
+                handle.cancel();
+                future.cancel(false);
+                return;
+            }
+            processes.removeIf(BlockProcess::isDone);
+            if (applyingStates) {
+                return;
+            }
+            try {
+                while (true) {
+                    while (processes.size() < MAX_RESTORE_PROCESSES && !runs.isEmpty()) {
+                        int[] run = runs.poll();
+                        processes.add(submit(run));
+                    }
+                    if (!runs.isEmpty() || !processes.isEmpty()) {
+                        return;
+                    }
+                    if (!stateIndices.isEmpty()) {
+                        applyStates();
+                        return;
+                    }
+                    if (chunkIndex >= chunks.size()) {
+                        handle.cancel();
+                        future.complete(restored);
+                        return;
+                    }
+                    nextChunk();
+                }
+            } catch (Throwable throwable) {
+                JavaPlugin.getPlugin(GamesInTheBox.class).getLogger().log(Level.WARNING, "Error when restoring the blocks", throwable);
+                processes.forEach(BlockProcess::cancel);
+                handle.cancel();
+                future.completeExceptionally(throwable);
+            }
+        }
+
+        private void nextChunk() {
+            List<Integer> indices = chunks.get(chunkIndex++);
+            runMaterials.clear();
+            int runStart = -1;
+            int runEnd = -1;
+            Material runMaterial = null;
+            for (int index : indices) {
+                BlockData blockData = current.get(index);
+                if (blockData == null) {
+                    continue;
+                }
+                Material material = blockData.getMaterial();
+                if (!blockData.equals(material.createBlockData())) {
+                    stateIndices.add(index);
+                }
+                if (material == runMaterial && index == runEnd + 1 && current.yOf(index) != current.minY) {
+                    runEnd = index;
+                } else {
+                    if (runMaterial != null) {
+                        addRun(runStart, runEnd, runMaterial);
+                    }
+                    runStart = index;
+                    runEnd = index;
+                    runMaterial = material;
+                }
+                restored++;
+            }
+            if (runMaterial != null) {
+                addRun(runStart, runEnd, runMaterial);
+            }
+        }
+
+        private void addRun(int start, int end, Material material) {
+            runs.add(new int[]{start, end, runMaterials.size()});
+            runMaterials.add(material);
+        }
+
+        private BlockProcess submit(int[] run) {
+            int x = current.xOf(run[0]);
+            int z = current.zOf(run[0]);
+            ProbabilityCollection<io.github.projectunified.blockutil.api.BlockData> collection = new ProbabilityCollection<>();
+            collection.add(new io.github.projectunified.blockutil.api.BlockData(runMaterials.get(run[2]), (byte) 0), 1);
+            // Use the handler directly, as the restored blocks should not be marked as dirty again
+            return BlockHandlerUtil.getBlockHandler().setRandomBlocks(current.world, new BlockBox(x, current.yOf(run[0]), z, x, current.yOf(run[1]), z), collection);
+        }
+
+        private void applyStates() {
+            applyingStates = true;
+            List<Integer> indices = new ArrayList<>(stateIndices);
+            stateIndices.clear();
+            int first = indices.get(0);
+            Location location = new Location(current.world, current.xOf(first), current.yOf(first), current.zOf(first));
+            Scheduler.providingPlugin(BlockSnapshotFeature.class).sync().runLocationTask(location, () -> {
+                try {
+                    for (int index : indices) {
+                        BlockData blockData = current.get(index);
+                        if (blockData != null) {
+                            current.world.getBlockAt(current.xOf(index), current.yOf(index), current.zOf(index)).setBlockData(blockData, false);
+                        }
+                    }
+                } catch (Exception e) {
+                    JavaPlugin.getPlugin(GamesInTheBox.class).getLogger().log(Level.WARNING, "Error when restoring the block states", e);
+                }
+                synchronized (this) {
+                    applyingStates = false;
+                }
+            });
+        }
+    }
+
+    private static final class Snapshot {
+        private final World world;
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int maxX;
+        private final int maxY;
+        private final int maxZ;
+        private final int sizeY;
+        private final int sizeZ;
+        private final int volume;
+        private final ShortBuffer indexBuffer;
+        private final MappedByteBuffer mappedBuffer;
+        private final List<BlockData> palette = new ArrayList<>();
+        private final Map<BlockData, Integer> paletteIndex = new HashMap<>();
+        private boolean released = false;
+
+        private Snapshot(World world, BlockBox blockBox, @Nullable File spillFile) throws IOException {
+            this.world = world;
+            this.minX = blockBox.minX;
+            this.minY = blockBox.minY;
+            this.minZ = blockBox.minZ;
+            this.maxX = blockBox.maxX;
+            this.maxY = blockBox.maxY;
+            this.maxZ = blockBox.maxZ;
+            int sizeX = maxX - minX + 1;
+            this.sizeY = maxY - minY + 1;
+            this.sizeZ = maxZ - minZ + 1;
+            long longVolume = (long) sizeX * sizeY * sizeZ;
+            if (longVolume * Short.BYTES > Integer.MAX_VALUE) {
+                throw new IllegalStateException("The bounding box is too large to take a snapshot");
+            }
+            this.volume = (int) longVolume;
+            int bytes = volume * Short.BYTES;
+            if (spillFile == null) {
+                mappedBuffer = null;
+                indexBuffer = ByteBuffer.allocate(bytes).asShortBuffer();
+            } else {
+                File parent = spillFile.getParentFile();
+                if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                    throw new IOException("Cannot create the directory of the snapshot file");
+                }
+                try (RandomAccessFile file = new RandomAccessFile(spillFile, "rw"); FileChannel channel = file.getChannel()) {
+                    file.setLength(bytes);
+                    mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                    indexBuffer = mappedBuffer.asShortBuffer();
+                }
+            }
+        }
+
+        private List<int[]> getChunks() {
+            List<int[]> chunks = new ArrayList<>();
+            for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+                for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                    chunks.add(new int[]{
+                            Math.max(minX, chunkX << 4), Math.min(maxX, (chunkX << 4) + 15),
+                            Math.max(minZ, chunkZ << 4), Math.min(maxZ, (chunkZ << 4) + 15)
+                    });
+                }
+            }
+            return chunks;
+        }
+
+        private int indexOf(int x, int y, int z) {
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                return -1;
+            }
+            return ((x - minX) * sizeZ + (z - minZ)) * sizeY + (y - minY);
+        }
+
+        private int xOf(int index) {
+            return minX + index / (sizeY * sizeZ);
+        }
+
+        private int zOf(int index) {
+            return minZ + (index / sizeY) % sizeZ;
+        }
+
+        private int yOf(int index) {
+            return minY + index % sizeY;
+        }
+
+        private synchronized boolean isReleased() {
+            return released;
+        }
+
+        private synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            palette.clear();
+            paletteIndex.clear();
+            if (mappedBuffer != null) {
+                unmap(mappedBuffer);
+            }
+        }
+
+        private static void unmap(MappedByteBuffer buffer) {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+                unsafeField.setAccessible(true);
+                invokeCleaner.invoke(unsafeField.get(null), buffer);
+                return;
+            } catch (Exception ignored) {
+                // IGNORED
+            }
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (Exception ignored) {
+                // IGNORED
+            }
+        }
+
+        private synchronized void set(int x, int y, int z, BlockData blockData) {
+            if (released) {
+                return;
+            }
+            Integer paletteId = paletteIndex.get(blockData);
+            if (paletteId == null) {
+                if (palette.size() > 0xFFFF) {
+                    throw new IllegalStateException("There are too many block states to take a snapshot");
+                }
+                paletteId = palette.size();
+                palette.add(blockData);
+                paletteIndex.put(blockData, paletteId);
+            }
+            indexBuffer.put(indexOf(x, y, z), (short) paletteId.intValue());
+        }
+
+        @Nullable
+        private synchronized BlockData get(int index) {
+            if (released) {
+                return null;
+            }
+            int paletteId = indexBuffer.get(index) & 0xFFFF;
+            return paletteId < palette.size() ? palette.get(paletteId) : null;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.game.feature;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.entity.EntityTeleportEvent;
+import org.bukkit.event.player.*;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The tracker that keeps the entities in the bounding box of a {@link BoundingFeature} up to date.
+ * The set is updated incrementally from the spawn, move, teleport, respawn, join, world change, death, quit and chunk unload events.
+ * Spigot does not fire move events for non-player entities, so call {@link #refresh()} to pick up their movement.
+ * The entities that are removed without an event are dropped when the tracked entities are read,
+ * or right away from the entity removal event of Paper if it's available.
+ * Override {@link #isTracked(Entity)} and {@link #scan()} to track a subset of the entities,
+ * and {@link #onEnter(Entity)} and {@link #onLeave(Entity)} to react to the changes.
+ */
+public class BoundingEntityTracker implements Listener {
+    private static final Class<? extends Event> REMOVE_FROM_WORLD_EVENT = findRemoveFromWorldEvent();
+    private final BoundingFeature boundingFeature;
+    private final boolean normalize;
+    private final Map<UUID, Entity> entityMap = new ConcurrentHashMap<>();
+    private final Collection<Entity> entityView = Collections.unmodifiableCollection(entityMap.values());
+
+    /**
+     * Create a new tracker
+     *
+     * @param boundingFeature the bounding feature
+     * @param normalize       whether to normalize the entity location to the nearest block
+     */
+    public BoundingEntityTracker(@NotNull BoundingFeature boundingFeature, boolean normalize) {
+        this.boundingFeature = boundingFeature;
+        this.normalize = normalize;
+    }
+
+    private static Class<? extends Event> findRemoveFromWorldEvent() {
+        try {
+            return Class.forName("com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent").asSubclass(Event.class);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Register the listener and scan the current entities
+     *
+     * @param plugin the plugin
+     */
+    public void register(@NotNull Plugin plugin) {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        if (REMOVE_FROM_WORLD_EVENT != null) {
+            plugin.getServer().getPluginManager().registerEvent(REMOVE_FROM_WORLD_EVENT, this, EventPriority.MONITOR, (listener, event) -> {
+                if (event instanceof EntityEvent) {
+                    leave(((EntityEvent) event).getEntity());
+                }
+            }, plugin);
+        }
+        refresh();
+    }
+
+    /**
+     * Unregister the listener and clear the tracked entities
+     */
+    public void unregister() {
+        HandlerList.unregisterAll(this);
+        entityMap.clear();
+    }
+
+    /**
+     * Re-scan the entities in the bounding box
+     */
+    public void refresh() {
+        for (Entity entity : entityMap.values()) {
+            if (!entity.isValid() || !boundingFeature.checkBounding(entity.getLocation(), normalize)) {
+                leave(entity);
+            }
+        }
+        for (Entity entity : scan()) {
+            update(entity, entity.getLocation());
+        }
+    }
+
+    /**
+     * Get the entities to check when the tracker is refreshed.
+     * Override this method to narrow the scan to the entities that are tracked.
+     *
+     * @return the entities
+     */
+    @NotNull
+    protected Collection<? extends Entity> scan() {
+        return boundingFeature.getEntities(normalize).collect(Collectors.toList());
+    }
+
+    /**
+     * Check if the entity should be tracked
+     *
+     * @param entity the entity
+     * @return true if it should
+     */
+    protected boolean isTracked(@NotNull Entity entity) {
+        return true;
+    }
+
+    /**
+     * Called when an entity enters the bounding box
+     *
+     * @param entity the entity
+     */
+    protected void onEnter(@NotNull Entity entity) {
+        // EMPTY
+    }
+
+    /**
+     * Called when an entity leaves the bounding box or is removed
+     *
+     * @param entity the entity
+     */
+    protected void onLeave(@NotNull Entity entity) {
+        // EMPTY
+    }
+
+    private void removeInvalid() {
+        for (Entity entity : entityMap.values()) {
+            if (!entity.isValid()) {
+                leave(entity);
+            }
+        }
+    }
+
+    /**
+     * Get the tracked entities
+     *
+     * @return the unmodifiable view of the tracked entities
+     */
+    @NotNull
+    public Collection<Entity> getEntities() {
+        removeInvalid();
+        return entityView;
+    }
+
+    /**
+     * Check if the entity is tracked
+     *
+     * @param uuid the unique id of the entity
+     * @return true if it is tracked
+     */
+    public boolean contains(@NotNull UUID uuid) {
+        Entity entity = entityMap.get(uuid);
+        return entity != null && entity.isValid();
+    }
+
+    /**
+     * Get the amount of the tracked entities
+     *
+     * @return the amount
+     */
+    public int size() {
+        removeInvalid();
+        return entityMap.size();
+    }
+
+    private void update(Entity entity, Location location) {
+        if (!isTracked(entity)) {
+            return;
+        }
+        if (boundingFeature.checkBounding(location, normalize)) {
+            if (entityMap.put(entity.getUniqueId(), entity) == null) {
+                onEnter(entity);
+            }
+        } else {
+            leave(entity);
+        }
+    }
+
+    private void leave(Entity entity) {
+        if (entityMap.remove(entity.getUniqueId()) != null) {
+            onLeave(entity);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSpawn(EntitySpawnEvent event) {
+        update(event.getEntity(), event.getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(EntityTeleportEvent event) {
+        Location to = event.getTo();
+        if (to == null) {
+            leave(event.getEntity());
+        } else {
+            update(event.getEntity(), to);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null) {
+            return;
+        }
+        if (normalize
+                && from.getWorld() == to.getWorld()
+                && from.getBlockX() == to.getBlockX()
+                && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ()) {
+            return;
+        }
+        update(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangedWorld(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeath(EntityDeathEvent event) {
+        leave(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        leave(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        for (Entity entity : event.getChunk().getEntities()) {
+            leave(entity);
+        }
+    }
+}
@@ -16,25 +16,31 @@
 package me.hsgamer.gamesinthebox.game.feature;
 
 import com.google.common.base.Preconditions;
-import me.hsgamer.hscore.bukkit.block.BukkitBlockAdapter;
 import me.hsgamer.hscore.common.Pair;
 import me.hsgamer.hscore.minecraft.block.box.BlockBox;
 import me.hsgamer.minigamecore.base.Feature;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
  * The {@link Feature} that handles the bounding box
  */
 public abstract class BoundingFeature implements Feature {
+    private static final ThreadLocal<Location> REUSABLE_LOCATION = ThreadLocal.withInitial(() -> new Location(null, 0, 0, 0));
+    private final Set<BoundingEntityTracker> entityTrackers = ConcurrentHashMap.newKeySet();
     private World world;
     private BlockBox blockBox;
+    private volatile Bounds bounds;
 
     /**
      * Create the {@link World} and the {@link BlockBox}
@@ -49,6 +55,14 @@ public abstract class BoundingFeature implements Feature {
         Pair<World, BlockBox> pair = createWorldBox();
         this.world = pair.getKey();
         this.blockBox = pair.getValue();
+        this.bounds = new Bounds(world.getUID(), blockBox);
+    }
+
+    @Override
+    public void clear() {
+        entityTrackers.forEach(BoundingEntityTracker::unregister);
+        entityTrackers.clear();
+        bounds = null;
     }
 
     /**
@@ -82,7 +96,13 @@ public abstract class BoundingFeature implements Feature {
      */
     public boolean checkBounding(@NotNull OfflinePlayer player, boolean normalize) {
         Player onlinePlayer = player.getPlayer();
-        return onlinePlayer != null && checkBounding(onlinePlayer.getLocation(), normalize);
+        if (onlinePlayer == null) {
+            return false;
+        }
+        Location location = onlinePlayer.getLocation(REUSABLE_LOCATION.get());
+        boolean result = checkBounding(location, normalize);
+        location.setWorld(null);
+        return result;
     }
 
     /**
@@ -93,25 +113,137 @@ public abstract class BoundingFeature implements Feature {
      * @return true if the location is in the bounding box
      */
     public boolean checkBounding(@NotNull Location location, boolean normalize) {
-        if (blockBox == null) {
+        World locationWorld = location.getWorld();
+        return locationWorld != null && checkBounding(location.getX(), location.getY(), location.getZ(), locationWorld.getUID(), normalize);
+    }
+
+    /**
+     * Check if the position is in the bounding box.
+     * This compares against the bounds cached when the feature is initialized and does not allocate.
+     *
+     * @param x         the x coordinate
+     * @param y         the y coordinate
+     * @param z         the z coordinate
+     * @param worldUID  the unique id of the world
+     * @param normalize whether to normalize the position to the nearest block
+     * @return true if the position is in the bounding box
+     */
+    public boolean checkBounding(double x, double y, double z, @NotNull UUID worldUID, boolean normalize) {
+        Bounds currentBounds = bounds;
+        if (currentBounds == null || !currentBounds.worldUID.equals(worldUID)) {
             return false;
         }
+        if (normalize) {
+            x = Math.floor(x);
+            y = Math.floor(y);
+            z = Math.floor(z);
+        }
+        return currentBounds.contains(x, y, z);
+    }
 
-        if (location.getWorld() != world) {
-            return false;
+    /**
+     * Check which players are in the bounding box
+     *
+     * @param players   the players
+     * @param normalize whether to normalize the location to the nearest block
+     * @param result    the bit set to store the result, the bit at the index of the player in the list is set if the player is in the bounding box
+     */
+    public void checkBounding(@NotNull List<? extends Player> players, boolean normalize, @NotNull BitSet result) {
+        result.clear();
+        Bounds currentBounds = bounds;
+        if (currentBounds == null) {
+            return;
+        }
+        Location location = REUSABLE_LOCATION.get();
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).getLocation(location);
+            World locationWorld = location.getWorld();
+            if (locationWorld != null && checkBounding(location.getX(), location.getY(), location.getZ(), locationWorld.getUID(), normalize)) {
+                result.set(i);
+            }
         }
-        return blockBox.contains(BukkitBlockAdapter.adapt(location, normalize));
+        location.setWorld(null);
     }
 
     /**
-     * Get the entities in the bounding box
+     * Get the entities in the bounding box.
+     * Only the loaded chunks that overlap the bounding box are queried.
      *
      * @param normalize whether to normalize the entity location to the nearest block
      * @return the entities
      */
     public Stream<Entity> getEntities(boolean normalize) {
-        return world.getEntities()
-                .stream()
-                .filter(entity -> checkBounding(entity.getLocation(), normalize));
+        if (world == null || blockBox == null) {
+            return Stream.empty();
+        }
+        int minChunkX = blockBox.minX >> 4;
+        int maxChunkX = blockBox.maxX >> 4;
+        int minChunkZ = blockBox.minZ >> 4;
+        int maxChunkZ = blockBox.maxZ >> 4;
+        List<Chunk> chunks = new ArrayList<>((maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1));
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (world.isChunkLoaded(chunkX, chunkZ)) {
+                    chunks.add(world.getChunkAt(chunkX, chunkZ));
+                }
+            }
+        }
+        Location reusableLocation = new Location(world, 0, 0, 0);
+        return chunks.stream()
+                .flatMap(chunk -> Arrays.stream(chunk.getEntities()))
+                .filter(entity -> checkBounding(entity.getLocation(reusableLocation), normalize));
+    }
+
+    /**
+     * Create and register a tracker that keeps the entities in the bounding box up to date.
+     * The tracker is unregistered when the feature is cleared.
+     *
+     * @param plugin    the plugin to register the listener
+     * @param normalize whether to normalize the entity location to the nearest block
+     * @return the tracker
+     */
+    @NotNull
+    public BoundingEntityTracker registerEntityTracker(@NotNull Plugin plugin, boolean normalize) {
+        BoundingEntityTracker tracker = new BoundingEntityTracker(this, normalize);
+        tracker.register(plugin);
+        entityTrackers.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * Unregister the entity tracker
+     *
+     * @param tracker the tracker
+     */
+    public void unregisterEntityTracker(@NotNull BoundingEntityTracker tracker) {
+        if (entityTrackers.remove(tracker)) {
+            tracker.unregister();
+        }
+    }
+
+    private static final class Bounds {
+        private final UUID worldUID;
+        private final double minX;
+        private final double minY;
+        private final double minZ;
+        private final double maxX;
+        private final double maxY;
+        private final double maxZ;
+
+        private Bounds(UUID worldUID, BlockBox blockBox) {
+            this.worldUID = worldUID;
+            this.minX = blockBox.minX;
+            this.minY = blockBox.minY;
+            this.minZ = blockBox.minZ;
+            this.maxX = blockBox.maxX;
+            this.maxY = blockBox.maxY;
+            this.maxZ = blockBox.maxZ;
+        }
+
+        private boolean contains(double x, double y, double z) {
+            return x >= minX && x <= maxX
+                    && y >= minY && y <= maxY
+                    && z >= minZ && z <= maxZ;
+        }
     }
 }
@@ -15,21 +15,44 @@
 */
 package me.hsgamer.gamesinthebox.game.feature;
 
+import me.hsgamer.gamesinthebox.util.LocationUtil;
+import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
 import me.hsgamer.hscore.minecraft.block.box.BlockBox;
 import me.hsgamer.minigamecore.base.Feature;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The {@link Feature} that handles the offset of the {@link BoundingFeature}
  */
 public abstract class BoundingOffsetFeature implements Feature {
+    private static final Method WORLD_MIN_HEIGHT_METHOD = getWorldMinHeightMethod();
     private final BoundingFeature boundingFeature;
     private final boolean maxInclusive;
     private OffsetSetting offsetSetting = OffsetSetting.DEFAULT;
+    private final BlockChangeTracker changeTracker = new BlockChangeTracker(new BlockChangeTracker.ChangeHandler() {
+        @Override
+        public void onChange(@NotNull World world, int x, int y, int z) {
+            recheckStandable(world, x, y, z);
+        }
+
+        @Override
+        public void onChange(@NotNull World world, @NotNull BlockBox blockBox) {
+            recheckStandable(world, blockBox);
+        }
+    });
+    private volatile Bounds bounds;
+    private volatile StandableIndex standableIndex;
 
     /**
      * Create a new bounding offset feature
@@ -50,9 +73,213 @@ public abstract class BoundingOffsetFeature implements Feature {
     @NotNull
     protected abstract OffsetSetting createOffsetSetting();
 
+    /**
+     * Check if the standable positions should be scanned after the feature is initialized
+     *
+     * @return true if they should
+     * @see #scanStandablePositions()
+     */
+    protected boolean shouldScanStandable() {
+        return false;
+    }
+
     @Override
     public void postInit() {
         this.offsetSetting = createOffsetSetting();
+        this.bounds = null;
+        if (shouldScanStandable()) {
+            Scheduler.providingPlugin(BoundingOffsetFeature.class).sync().runTask(this::scanStandablePositions);
+        }
+    }
+
+    @Override
+    public void clear() {
+        changeTracker.unregister();
+        this.bounds = null;
+        this.standableIndex = null;
+    }
+
+    /**
+     * Scan the bounding box for the standable positions, which are the positions with a solid block below and two passable blocks.
+     * The chunk snapshots are taken on their own region, one chunk per tick, and the positions are indexed asynchronously.
+     * The chunks that are not loaded are skipped, so their positions are not indexed.
+     * When the index is ready, {@link #getRandomLocation(Location, boolean)} draws from it,
+     * and the index is updated when the blocks in the bounding box change.
+     *
+     * @return the future of the amount of the standable positions
+     */
+    @NotNull
+    public CompletableFuture<Integer> scanStandablePositions() {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Bounds currentBounds;
+        StandableIndex newIndex;
+        try {
+            currentBounds = getBounds();
+            newIndex = new StandableIndex(currentBounds);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        List<ChunkSnapshot> snapshots = new ArrayList<>();
+        List<int[]> chunks = new ArrayList<>();
+        for (int chunkX = newIndex.minX >> 4; chunkX <= newIndex.maxX >> 4; chunkX++) {
+            for (int chunkZ = newIndex.minZ >> 4; chunkZ <= newIndex.maxZ >> 4; chunkZ++) {
+                chunks.add(new int[]{chunkX, chunkZ});
+            }
+        }
+        int minHeight = getMinHeight(currentBounds.world);
+        int maxHeight = currentBounds.world.getMaxHeight();
+        takeSnapshot(currentBounds.world, chunks, 0, snapshots, () -> Scheduler.providingPlugin(BoundingOffsetFeature.class).async().runTask(() -> {
+            try {
+                for (ChunkSnapshot snapshot : snapshots) {
+                    newIndex.scan(snapshot, minHeight, maxHeight);
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            standableIndex = newIndex;
+            Scheduler.providingPlugin(BoundingOffsetFeature.class).sync().runTask(() -> {
+                if (standableIndex == newIndex) {
+                    Plugin plugin = JavaPlugin.getProvidingPlugin(BoundingOffsetFeature.class);
+                    changeTracker.register(plugin);
+                }
+                future.complete(newIndex.size());
+            });
+        }), future);
+        return future;
+    }
+
+    private void takeSnapshot(World world, List<int[]> chunks, int index, List<ChunkSnapshot> snapshots, Runnable onComplete, CompletableFuture<Integer> future) {
+        if (index >= chunks.size()) {
+            onComplete.run();
+            return;
+        }
+        int[] chunk = chunks.get(index);
+        Location location = new Location(world, chunk[0] << 4, 0, chunk[1] << 4);
+        Scheduler.providingPlugin(BoundingOffsetFeature.class).sync().runLocationTask(location, () -> {
+            try {
+                if (world.isChunkLoaded(chunk[0], chunk[1])) {
+                    snapshots.add(world.getChunkAt(chunk[0], chunk[1]).getChunkSnapshot());
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            takeSnapshot(world, chunks, index + 1, snapshots, onComplete, future);
+        });
+    }
+
+    /**
+     * Get the amount of the indexed standable positions
+     *
+     * @return the amount, or -1 if the positions are not scanned
+     */
+    public int countStandablePositions() {
+        StandableIndex currentIndex = standableIndex;
+        return currentIndex == null ? -1 : currentIndex.size();
+    }
+
+    private void recheckStandable(World world, int x, int y, int z) {
+        StandableIndex currentIndex = standableIndex;
+        if (currentIndex == null || world != currentIndex.world) {
+            return;
+        }
+        if (!currentIndex.isNear(x, y, z)) {
+            return;
+        }
+        // The block is changed after the event, so check it in the next tick
+        Scheduler.providingPlugin(BoundingOffsetFeature.class).sync().runLocationTask(new Location(world, x, y, z), () -> {
+            for (int feetY = y - 1; feetY <= y + 1; feetY++) {
+                currentIndex.update(x, feetY, z, isStandable(currentIndex.world, x, feetY, z));
+            }
+        });
+    }
+
+    private void recheckStandable(World world, BlockBox blockBox) {
+        StandableIndex currentIndex = standableIndex;
+        if (currentIndex == null || world != currentIndex.world) {
+            return;
+        }
+        int startX = Math.max(blockBox.minX, currentIndex.minX);
+        int endX = Math.min(blockBox.maxX, currentIndex.maxX);
+        int startY = Math.max(blockBox.minY - 1, currentIndex.minY);
+        int endY = Math.min(blockBox.maxY + 1, currentIndex.maxY);
+        int startZ = Math.max(blockBox.minZ, currentIndex.minZ);
+        int endZ = Math.min(blockBox.maxZ, currentIndex.maxZ);
+        if (startX > endX || startY > endY || startZ > endZ) {
+            return;
+        }
+        // The blocks are being changed, so stop drawing them until they are checked again
+        for (int x = startX; x <= endX; x++) {
+            for (int z = startZ; z <= endZ; z++) {
+                for (int y = startY; y <= endY; y++) {
+                    currentIndex.update(x, y, z, false);
+                }
+            }
+        }
+        for (int chunkX = startX >> 4; chunkX <= endX >> 4; chunkX++) {
+            for (int chunkZ = startZ >> 4; chunkZ <= endZ >> 4; chunkZ++) {
+                int chunkStartX = Math.max(startX, chunkX << 4);
+                int chunkEndX = Math.min(endX, (chunkX << 4) + 15);
+                int chunkStartZ = Math.max(startZ, chunkZ << 4);
+                int chunkEndZ = Math.min(endZ, (chunkZ << 4) + 15);
+                Scheduler.providingPlugin(BoundingOffsetFeature.class).sync().runLocationTask(new Location(world, chunkStartX, startY, chunkStartZ), () -> {
+                    for (int x = chunkStartX; x <= chunkEndX; x++) {
+                        for (int z = chunkStartZ; z <= chunkEndZ; z++) {
+                            for (int y = startY; y <= endY; y++) {
+                                currentIndex.update(x, y, z, isStandable(currentIndex.world, x, y, z));
+                            }
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private static Method getWorldMinHeightMethod() {
+        try {
+            return World.class.getMethod("getMinHeight");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static int getMinHeight(World world) {
+        if (WORLD_MIN_HEIGHT_METHOD != null) {
+            try {
+                return (int) WORLD_MIN_HEIGHT_METHOD.invoke(world);
+            } catch (Exception ignored) {
+                // IGNORED
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isStandable(World world, int x, int y, int z) {
+        if (y <= getMinHeight(world) || y + 1 >= world.getMaxHeight()) {
+            return false;
+        }
+        return isPassable(world.getBlockAt(x, y, z).getType())
+                && isPassable(world.getBlockAt(x, y + 1, z).getType())
+                && world.getBlockAt(x, y - 1, z).getType().isSolid();
+    }
+
+    private static boolean isPassable(Material material) {
+        return !material.isSolid() && material != Material.WATER && material != Material.LAVA;
+    }
+
+    private Bounds getBounds() {
+        Bounds currentBounds = bounds;
+        if (currentBounds == null) {
+            BlockBox blockBox = boundingFeature.getBlockBox();
+            if (maxInclusive) {
+                blockBox = blockBox.maxInclusive();
+            }
+            currentBounds = new Bounds(boundingFeature.getWorld(), blockBox, offsetSetting);
+            bounds = currentBounds;
+        }
+        return currentBounds;
     }
 
     /**
@@ -81,24 +308,102 @@ public abstract class BoundingOffsetFeature implements Feature {
      */
     @NotNull
     public Location getRandomLocation(boolean normalize) {
-        BlockBox blockBox = boundingFeature.getBlockBox();
-        if (maxInclusive) {
-            blockBox = blockBox.maxInclusive();
+        return getRandomLocation(new Location(null, 0, 0, 0), normalize);
+    }
+
+    /**
+     * Get a random location in the bounding box and write it to the location holder.
+     * The bounds are computed once after the feature is initialized, so this does not allocate.
+     *
+     * @param holder    the location holder
+     * @param normalize whether to normalize the location by setting to the nearest block
+     * @return the location holder
+     */
+    @NotNull
+    public Location getRandomLocation(@NotNull Location holder, boolean normalize) {
+        Bounds currentBounds = getBounds();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StandableIndex currentIndex = standableIndex;
+        if (currentIndex != null) {
+            long blockKey = currentIndex.sample(random);
+            if (blockKey != Long.MIN_VALUE) {
+                holder.setWorld(currentBounds.world);
+                int blockX = LocationUtil.getBlockKeyX(blockKey);
+                int blockZ = LocationUtil.getBlockKeyZ(blockKey);
+                holder.setX(normalize ? blockX : blockX + 0.5);
+                holder.setY(LocationUtil.getBlockKeyY(blockKey));
+                holder.setZ(normalize ? blockZ : blockZ + 0.5);
+                holder.setYaw(0);
+                holder.setPitch(0);
+                return holder;
+            }
+        }
+        double x = random.nextDouble(currentBounds.minX, currentBounds.maxX);
+        double y = random.nextDouble(currentBounds.minY, currentBounds.maxY);
+        double z = random.nextDouble(currentBounds.minZ, currentBounds.maxZ);
+        holder.setWorld(currentBounds.world);
+        if (normalize) {
+            holder.setX(Math.floor(x));
+            holder.setY(Math.floor(y));
+            holder.setZ(Math.floor(z));
+        } else {
+            holder.setX(x);
+            holder.setY(y);
+            holder.setZ(z);
+        }
+        holder.setYaw(0);
+        holder.setPitch(0);
+        return holder;
+    }
+
+    /**
+     * Get a random block position in the bounding box as packed coordinates
+     *
+     * @return the packed coordinates
+     * @see LocationUtil#getBlockKey(int, int, int)
+     */
+    public long getRandomBlockKey() {
+        Bounds currentBounds = getBounds();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StandableIndex currentIndex = standableIndex;
+        if (currentIndex != null) {
+            long blockKey = currentIndex.sample(random);
+            if (blockKey != Long.MIN_VALUE) {
+                return blockKey;
+            }
         }
-        World world = boundingFeature.getWorld();
+        int x = (int) Math.floor(random.nextDouble(currentBounds.minX, currentBounds.maxX));
+        int y = (int) Math.floor(random.nextDouble(currentBounds.minY, currentBounds.maxY));
+        int z = (int) Math.floor(random.nextDouble(currentBounds.minZ, currentBounds.maxZ));
+        return LocationUtil.getBlockKey(x, y, z);
+    }
 
-        double minX = blockBox.minX + offsetSetting.minXOffset;
-        double maxX = blockBox.maxX - offsetSetting.maxXOffset;
-        double minY = blockBox.minY + offsetSetting.minYOffset;
-        double maxY = blockBox.maxY - offsetSetting.maxYOffset;
-        double minZ = blockBox.minZ + offsetSetting.minZOffset;
-        double maxZ = blockBox.maxZ - offsetSetting.maxZOffset;
-        double x = ThreadLocalRandom.current().nextDouble(minX, maxX + 1);
-        double y = ThreadLocalRandom.current().nextDouble(minY, maxY + 1);
-        double z = ThreadLocalRandom.current().nextDouble(minZ, maxZ + 1);
-        Location location = new Location(world, x, y, z);
+    /**
+     * Fill the array with random block positions in the bounding box as packed coordinates
+     *
+     * @param out the array
+     * @see LocationUtil#getBlockKey(int, int, int)
+     */
+    public void fillRandomBlockKeys(@NotNull long[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = getRandomBlockKey();
+        }
+    }
 
-        return normalize ? new Location(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ()) : location;
+    /**
+     * Get random locations in the bounding box
+     *
+     * @param amount    the amount of locations
+     * @param normalize whether to normalize the locations by setting to the nearest block
+     * @return the random locations
+     */
+    @NotNull
+    public List<Location> getRandomLocations(int amount, boolean normalize) {
+        List<Location> locations = new ArrayList<>(Math.max(amount, 0));
+        for (int i = 0; i < amount; i++) {
+            locations.add(getRandomLocation(normalize));
+        }
+        return locations;
     }
 
     /**
@@ -111,6 +416,124 @@ public abstract class BoundingOffsetFeature implements Feature {
         return getRandomLocation(true);
     }
 
+    private static final class Bounds {
+        private final World world;
+        private final double minX;
+        private final double maxX;
+        private final double minY;
+        private final double maxY;
+        private final double minZ;
+        private final double maxZ;
+
+        private Bounds(World world, BlockBox blockBox, OffsetSetting offsetSetting) {
+            this.world = world;
+            this.minX = blockBox.minX + offsetSetting.minXOffset;
+            this.maxX = blockBox.maxX - offsetSetting.maxXOffset + 1;
+            this.minY = blockBox.minY + offsetSetting.minYOffset;
+            this.maxY = blockBox.maxY - offsetSetting.maxYOffset + 1;
+            this.minZ = blockBox.minZ + offsetSetting.minZOffset;
+            this.maxZ = blockBox.maxZ - offsetSetting.maxZOffset + 1;
+        }
+    }
+
+    private static final class StandableIndex {
+        private final World world;
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int maxX;
+        private final int maxY;
+        private final int maxZ;
+        private final int sizeY;
+        private final int sizeZ;
+        private final BitSet valid = new BitSet();
+        private final BitSet listed = new BitSet();
+        private long[] keys = new long[64];
+        private int size = 0;
+
+        private StandableIndex(Bounds bounds) {
+            this.world = bounds.world;
+            this.minX = (int) Math.floor(bounds.minX);
+            this.minY = (int) Math.floor(bounds.minY);
+            this.minZ = (int) Math.floor(bounds.minZ);
+            this.maxX = (int) Math.ceil(bounds.maxX) - 1;
+            this.maxY = (int) Math.ceil(bounds.maxY) - 1;
+            this.maxZ = (int) Math.ceil(bounds.maxZ) - 1;
+            this.sizeY = Math.max(maxY - minY + 1, 0);
+            this.sizeZ = Math.max(maxZ - minZ + 1, 0);
+            long volume = (long) Math.max(maxX - minX + 1, 0) * sizeY * sizeZ;
+            if (volume > Integer.MAX_VALUE) {
+                throw new IllegalStateException("The bounding box is too large to scan");
+            }
+        }
+
+        private int indexOf(int x, int y, int z) {
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                return -1;
+            }
+            return ((x - minX) * sizeZ + (z - minZ)) * sizeY + (y - minY);
+        }
+
+        private boolean isNear(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY - 1 && y <= maxY + 1 && z >= minZ && z <= maxZ;
+        }
+
+        private void scan(ChunkSnapshot snapshot, int minHeight, int maxHeight) {
+            int startX = Math.max(minX, snapshot.getX() << 4);
+            int endX = Math.min(maxX, (snapshot.getX() << 4) + 15);
+            int startZ = Math.max(minZ, snapshot.getZ() << 4);
+            int endZ = Math.min(maxZ, (snapshot.getZ() << 4) + 15);
+            int startY = Math.max(minY, minHeight + 1);
+            int endY = Math.min(maxY, maxHeight - 2);
+            for (int x = startX; x <= endX; x++) {
+                for (int z = startZ; z <= endZ; z++) {
+                    for (int y = startY; y <= endY; y++) {
+                        boolean standable = isPassable(snapshot.getBlockType(x & 15, y, z & 15))
+                                && isPassable(snapshot.getBlockType(x & 15, y + 1, z & 15))
+                                && snapshot.getBlockType(x & 15, y - 1, z & 15).isSolid();
+                        if (standable) {
+                            update(x, y, z, true);
+                        }
+                    }
+                }
+            }
+        }
+
+        private synchronized void update(int x, int y, int z, boolean standable) {
+            int index = indexOf(x, y, z);
+            if (index < 0) {
+                return;
+            }
+            valid.set(index, standable);
+            if (standable && !listed.get(index)) {
+                listed.set(index);
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                keys[size++] = LocationUtil.getBlockKey(x, y, z);
+            }
+        }
+
+        private synchronized long sample(ThreadLocalRandom random) {
+            while (size > 0) {
+                int slot = random.nextInt(size);
+                long blockKey = keys[slot];
+                int index = indexOf(LocationUtil.getBlockKeyX(blockKey), LocationUtil.getBlockKeyY(blockKey), LocationUtil.getBlockKeyZ(blockKey));
+                if (valid.get(index)) {
+                    return blockKey;
+                }
+                // Remove the invalidated position lazily
+                listed.clear(index);
+                keys[slot] = keys[--size];
+            }
+            return Long.MIN_VALUE;
+        }
+
+        private synchronized int size() {
+            return valid.cardinality();
+        }
+    }
+
     /**
      * The offset setting
      */
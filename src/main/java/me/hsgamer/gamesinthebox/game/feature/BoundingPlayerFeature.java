@@ -0,0 +1,147 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.game.feature;
+
+import me.hsgamer.minigamecore.base.Feature;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The {@link Feature} that keeps the players in the bounding box of the {@link BoundingFeature}.
+ * The players are tracked by a {@link BoundingEntityTracker} that only accepts the players,
+ * so the games can read the players in the bounding box without scanning all the online players.
+ */
+public class BoundingPlayerFeature implements Feature {
+    private final Plugin plugin;
+    private final PlayerTracker tracker;
+    private final List<Consumer<Player>> enterListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Player>> leaveListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Create a new feature
+     *
+     * @param plugin          the plugin to register the listener
+     * @param boundingFeature the bounding feature
+     * @param normalize       whether to normalize the player location to the nearest block
+     */
+    public BoundingPlayerFeature(@NotNull Plugin plugin, @NotNull BoundingFeature boundingFeature, boolean normalize) {
+        this.plugin = plugin;
+        this.tracker = new PlayerTracker(boundingFeature, normalize);
+    }
+
+    @Override
+    public void postInit() {
+        tracker.register(plugin);
+    }
+
+    @Override
+    public void clear() {
+        tracker.unregister();
+        enterListeners.clear();
+        leaveListeners.clear();
+    }
+
+    /**
+     * Re-scan the online players
+     */
+    public void refresh() {
+        tracker.refresh();
+    }
+
+    /**
+     * Get the players in the bounding box
+     *
+     * @return the unmodifiable view of the players
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public Collection<Player> getPlayers() {
+        return (Collection<Player>) (Collection<?>) tracker.getEntities();
+    }
+
+    /**
+     * Check if the player is in the bounding box
+     *
+     * @param uuid the unique id of the player
+     * @return true if the player is in the bounding box
+     */
+    public boolean contains(@NotNull UUID uuid) {
+        return tracker.contains(uuid);
+    }
+
+    /**
+     * Get the amount of the players in the bounding box
+     *
+     * @return the amount
+     */
+    public int size() {
+        return tracker.size();
+    }
+
+    /**
+     * Add the listener that is called when a player enters the bounding box
+     *
+     * @param enterListener the listener
+     */
+    public void addEnterListener(@NotNull Consumer<Player> enterListener) {
+        enterListeners.add(enterListener);
+    }
+
+    /**
+     * Add the listener that is called when a player leaves the bounding box
+     *
+     * @param leaveListener the listener
+     */
+    public void addLeaveListener(@NotNull Consumer<Player> leaveListener) {
+        leaveListeners.add(leaveListener);
+    }
+
+    private final class PlayerTracker extends BoundingEntityTracker {
+        private PlayerTracker(BoundingFeature boundingFeature, boolean normalize) {
+            super(boundingFeature, normalize);
+        }
+
+        @Override
+        protected @NotNull Collection<? extends Entity> scan() {
+            return plugin.getServer().getOnlinePlayers();
+        }
+
+        @Override
+        protected boolean isTracked(@NotNull Entity entity) {
+            return entity instanceof Player;
+        }
+
+        @Override
+        protected void onEnter(@NotNull Entity entity) {
+            Player player = (Player) entity;
+            enterListeners.forEach(consumer -> consumer.accept(player));
+        }
+
+        @Override
+        protected void onLeave(@NotNull Entity entity) {
+            Player player = (Player) entity;
+            leaveListeners.forEach(consumer -> consumer.accept(player));
+        }
+    }
+}
@@ -15,22 +15,41 @@
 */
 package me.hsgamer.gamesinthebox.game.feature;
 
+import me.hsgamer.gamesinthebox.GamesInTheBox;
 import me.hsgamer.gamesinthebox.util.EntityUtil;
+import me.hsgamer.gamesinthebox.util.TimerWheel;
 import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
-import me.hsgamer.hscore.bukkit.scheduler.Task;
 import me.hsgamer.minigamecore.base.Feature;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+import org.bukkit.util.Vector;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -38,13 +57,27 @@ import java.util.stream.Stream;
  * The {@link Feature} for {@link Entity}
  */
 public abstract class EntityFeature implements Feature {
+    private static final boolean FOLIA = isFolia();
     private final Set<Entity> entities = ConcurrentHashMap.newKeySet();
-    private final Queue<Entity> entityQueue = new ArrayDeque<>();
+    private final Queue<Entity> entityQueue = new ConcurrentLinkedQueue<>();
     private final Queue<SpawnRequest> spawnRequestQueue = new ConcurrentLinkedQueue<>();
-    private final AtomicReference<Task> currentEntityTaskRef = new AtomicReference<>(null);
+    private final Queue<SpawnBatch> spawnBatchQueue = new ConcurrentLinkedQueue<>();
+    private final Map<ChunkKey, SpawnGroup> spawnGroups = new ConcurrentHashMap<>();
+    private final AtomicReference<TimerWheel.Handle> currentEntityTaskRef = new AtomicReference<>(null);
     private final AtomicReference<List<Predicate<Entity>>> entityClearCheckRef = new AtomicReference<>(Collections.emptyList());
     private final AtomicBoolean clearAllEntities = new AtomicBoolean(false);
     private final AtomicInteger spawnRequestPerTick = new AtomicInteger(1);
+    private final Deque<Entity> entityPool = new ConcurrentLinkedDeque<>();
+    private final Set<Entity> pooledEntities = ConcurrentHashMap.newKeySet();
+    private final Map<Entity, Boolean> parkedPersistence = new ConcurrentHashMap<>();
+    private final PoolListener poolListener = new PoolListener();
+    private final AtomicBoolean poolListenerRegistered = new AtomicBoolean(false);
+    private final AtomicInteger poolSize = new AtomicInteger(0);
+    private final AtomicInteger entityClearCheckPerTick = new AtomicInteger(1);
+    private final AtomicLong entityClearCheckTimeBudget = new AtomicLong(0);
+    private final AtomicLong lastSweepDuration = new AtomicLong(-1);
+    private int sweepRemaining = 0;
+    private long sweepStartTime = -1;
 
     /**
      * Create the entity at the location
@@ -55,6 +88,74 @@ public abstract class EntityFeature implements Feature {
     @Nullable
     protected abstract Entity createEntity(Location location);
 
+    private static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Park the entity to reuse it later.
+     * This is called when the pool mode is enabled and the entity is about to be removed.
+     * By default, the living entity is made invisible, silent, invulnerable, without gravity and AI,
+     * and it is not saved with its chunk, so it is discarded instead of lingering if the chunk is unloaded.
+     *
+     * @param entity the entity
+     * @return true if the entity is parked, false to despawn it instead
+     */
+    protected boolean parkEntity(Entity entity) {
+        if (!(entity instanceof LivingEntity)) {
+            return false;
+        }
+        LivingEntity livingEntity = (LivingEntity) entity;
+        livingEntity.addPotionEffect(new PotionEffect(PotionEffectType.INVISIBILITY, Integer.MAX_VALUE, 0, false, false), true);
+        livingEntity.setAI(false);
+        livingEntity.setSilent(true);
+        livingEntity.setInvulnerable(true);
+        livingEntity.setGravity(false);
+        livingEntity.setCollidable(false);
+        livingEntity.setVelocity(new Vector());
+        livingEntity.setPersistent(false);
+        return true;
+    }
+
+    /**
+     * Reset the parked entity and move it to the location, so it can be reused as a new entity.
+     * By default, this reverts {@link #parkEntity(Entity)}, restores the persistence the entity had before it was parked,
+     * restores the health and teleports the entity.
+     *
+     * @param entity   the parked entity
+     * @param location the location
+     * @return true if the entity is reused, false to despawn it and create a new entity instead
+     */
+    protected boolean resetEntity(Entity entity, Location location) {
+        if (!(entity instanceof LivingEntity)) {
+            return false;
+        }
+        LivingEntity livingEntity = (LivingEntity) entity;
+        if (!livingEntity.teleport(location)) {
+            return false;
+        }
+        livingEntity.removePotionEffect(PotionEffectType.INVISIBILITY);
+        livingEntity.setAI(true);
+        livingEntity.setSilent(false);
+        livingEntity.setInvulnerable(false);
+        livingEntity.setGravity(true);
+        livingEntity.setCollidable(true);
+        livingEntity.setPersistent(parkedPersistence.getOrDefault(entity, false));
+        livingEntity.setFireTicks(0);
+        livingEntity.setFallDistance(0);
+        livingEntity.setVelocity(new Vector());
+        AttributeInstance maxHealth = livingEntity.getAttribute(Attribute.GENERIC_MAX_HEALTH);
+        if (maxHealth != null) {
+            livingEntity.setHealth(maxHealth.getValue());
+        }
+        return true;
+    }
+
     /**
      * Request to spawn the entity
      *
@@ -87,6 +188,39 @@ public abstract class EntityFeature implements Feature {
         });
     }
 
+    /**
+     * Request to spawn the entities at the locations as a single batch.
+     * The batch is completed with the spawned entities, in the order of the locations, when all the locations are processed.
+     * The locations that fail to spawn an entity are skipped.
+     *
+     * @param locations       the locations
+     * @param onSpawnConsumer the consumer when each entity is spawned
+     * @return the batch
+     */
+    public SpawnBatch spawnAll(Collection<Location> locations, Consumer<Entity> onSpawnConsumer) {
+        SpawnBatch spawnBatch = new SpawnBatch(locations.toArray(new Location[0]), onSpawnConsumer);
+        if (spawnBatch.locations.length == 0) {
+            spawnBatch.finish();
+        } else if (!isTaskRunning()) {
+            spawnBatch.future.completeExceptionally(new IllegalStateException("The task is not running"));
+        } else {
+            spawnBatchQueue.add(spawnBatch);
+        }
+        return spawnBatch;
+    }
+
+    /**
+     * Request to spawn the entities at the locations as a single batch
+     *
+     * @param locations the locations
+     * @return the batch
+     * @see #spawnAll(Collection, Consumer)
+     */
+    public SpawnBatch spawnAll(Collection<Location> locations) {
+        return spawnAll(locations, entity -> {
+        });
+    }
+
     /**
      * Check if the entity is in the list
      *
@@ -130,7 +264,17 @@ public abstract class EntityFeature implements Feature {
      * @return the count
      */
     public long countSpawnRequests() {
-        return spawnRequestQueue.size();
+        long count = spawnRequestQueue.size();
+        for (SpawnBatch spawnBatch : spawnBatchQueue) {
+            count += spawnBatch.locations.length;
+        }
+        for (SpawnGroup spawnGroup : spawnGroups.values()) {
+            count += spawnGroup.requests.size();
+            for (BatchSlice batchSlice : spawnGroup.slices) {
+                count += batchSlice.indices.length - batchSlice.cursor;
+            }
+        }
+        return count;
     }
 
     /**
@@ -157,7 +301,7 @@ public abstract class EntityFeature implements Feature {
      * @return true if it is running
      */
     public boolean isTaskRunning() {
-        Task currentTask = currentEntityTaskRef.get();
+        TimerWheel.Handle currentTask = currentEntityTaskRef.get();
         return currentTask != null && !currentTask.isCancelled();
     }
 
@@ -169,73 +313,290 @@ public abstract class EntityFeature implements Feature {
             return;
         }
 
-        Task task = Scheduler.providingPlugin(EntityFeature.class).async().runTaskTimer(() -> {
+        TimerWheel.Handle task = JavaPlugin.getPlugin(GamesInTheBox.class).getTimerWheel().schedule("entity", () -> {
             if (clearAllEntities.get()) {
-                while (true) {
-                    SpawnRequest spawnRequest = spawnRequestQueue.poll();
-                    if (spawnRequest == null) {
-                        break;
-                    }
-                    spawnRequest.completableFuture.completeExceptionally(new IllegalStateException("The task is cleared"));
-                }
+                cancelSpawnRequests();
             } else {
-                int spawnAmount = Math.max(spawnRequestPerTick.get(), 1);
-                for (int i = 0; i < spawnAmount; i++) {
-                    SpawnRequest spawnRequest = spawnRequestQueue.poll();
-                    if (spawnRequest == null) {
-                        break;
-                    }
-                    Scheduler.providingPlugin(EntityFeature.class).sync().runLocationTask(spawnRequest.location, () -> {
-                        Entity entity = createEntity(spawnRequest.location);
-                        if (entity == null) {
-                            spawnRequest.completableFuture.completeExceptionally(new IllegalStateException("Cannot create the entity"));
-                        } else {
-                            spawnRequest.onSpawnConsumer.accept(entity);
-                            entities.add(entity);
-                            entityQueue.add(entity);
-                            spawnRequest.completableFuture.complete(entity);
-                        }
-                    });
+                dispatchSpawnRequests();
+            }
+
+            sweepEntities();
+        }, 1L, 1L);
+
+        currentEntityTaskRef.set(task);
+    }
+
+    private void sweepEntities() {
+        boolean clearAll = clearAllEntities.get();
+        List<Predicate<Entity>> list = entityClearCheckRef.get();
+        int checkAmount = Math.max(entityClearCheckPerTick.get(), 1);
+        long timeBudget = entityClearCheckTimeBudget.get();
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < checkAmount; i++) {
+            if (sweepRemaining <= 0) {
+                long now = System.nanoTime();
+                if (sweepStartTime >= 0) {
+                    lastSweepDuration.set(now - sweepStartTime);
+                }
+                sweepStartTime = now;
+                sweepRemaining = entityQueue.size();
+                if (sweepRemaining == 0) {
+                    break;
                 }
             }
+            if (timeBudget > 0 && i > 0 && System.nanoTime() - startTime >= timeBudget) {
+                break;
+            }
 
             Entity entity = entityQueue.poll();
-            if (entity == null || !entity.isValid()) {
-                return;
+            sweepRemaining--;
+            if (entity == null) {
+                break;
+            }
+            if (!entity.isValid()) {
+                continue;
             }
 
-            boolean toRemove;
-            if (clearAllEntities.get()) {
-                toRemove = true;
-            } else {
-                toRemove = false;
-                List<Predicate<Entity>> list = entityClearCheckRef.get();
-                if (list != null && !list.isEmpty()) {
-                    for (Predicate<Entity> predicate : list) {
-                        if (predicate.test(entity)) {
-                            toRemove = true;
-                            break;
-                        }
+            boolean toRemove = clearAll;
+            if (!toRemove && list != null) {
+                for (Predicate<Entity> predicate : list) {
+                    if (predicate.test(entity)) {
+                        toRemove = true;
+                        break;
                     }
                 }
             }
 
             if (toRemove) {
-                Scheduler.providingPlugin(EntityFeature.class).sync().runEntityTask(entity, () -> EntityUtil.despawnSafe(entity), () -> {
-                });
+                runEntityTask(entity, () -> removeEntity(entity));
             } else {
                 entityQueue.add(entity);
             }
-        }, 0L, 0L);
+        }
+    }
 
-        currentEntityTaskRef.set(task);
+    private void dispatchSpawnRequests() {
+        while (true) {
+            SpawnRequest spawnRequest = spawnRequestQueue.poll();
+            if (spawnRequest == null) {
+                break;
+            }
+            ChunkKey chunkKey = new ChunkKey(spawnRequest.location);
+            spawnGroups.computeIfAbsent(chunkKey, key -> new SpawnGroup(spawnRequest.location)).requests.add(spawnRequest);
+        }
+        while (true) {
+            SpawnBatch spawnBatch = spawnBatchQueue.poll();
+            if (spawnBatch == null) {
+                break;
+            }
+            splitSpawnBatch(spawnBatch);
+        }
+
+        int spawnAmount = Math.max(spawnRequestPerTick.get(), 1);
+        Iterator<SpawnGroup> iterator = spawnGroups.values().iterator();
+        while (iterator.hasNext()) {
+            SpawnGroup spawnGroup = iterator.next();
+            if (spawnGroup.scheduled.get()) {
+                continue;
+            }
+            List<SpawnRequest> requestBatch = new ArrayList<>();
+            List<BatchSlice> sliceBatch = new ArrayList<>();
+            List<int[]> sliceRanges = new ArrayList<>();
+            int remaining = spawnAmount;
+            while (remaining > 0) {
+                SpawnRequest spawnRequest = spawnGroup.requests.poll();
+                if (spawnRequest == null) {
+                    break;
+                }
+                requestBatch.add(spawnRequest);
+                remaining--;
+            }
+            while (remaining > 0) {
+                BatchSlice batchSlice = spawnGroup.slices.peek();
+                if (batchSlice == null) {
+                    break;
+                }
+                if (batchSlice.batch.isCancelled()) {
+                    spawnGroup.slices.poll();
+                    continue;
+                }
+                int start = batchSlice.cursor;
+                int end = Math.min(batchSlice.indices.length, start + remaining);
+                batchSlice.cursor = end;
+                remaining -= end - start;
+                sliceBatch.add(batchSlice);
+                sliceRanges.add(new int[]{start, end});
+                if (end >= batchSlice.indices.length) {
+                    spawnGroup.slices.poll();
+                }
+            }
+            if (requestBatch.isEmpty() && sliceBatch.isEmpty()) {
+                iterator.remove();
+                continue;
+            }
+            spawnGroup.scheduled.set(true);
+            Scheduler.providingPlugin(EntityFeature.class).sync().runLocationTask(spawnGroup.location, () -> {
+                try {
+                    requestBatch.forEach(this::spawnEntity);
+                    for (int i = 0; i < sliceBatch.size(); i++) {
+                        BatchSlice batchSlice = sliceBatch.get(i);
+                        int[] range = sliceRanges.get(i);
+                        for (int j = range[0]; j < range[1]; j++) {
+                            spawnBatchEntity(batchSlice.batch, batchSlice.indices[j]);
+                        }
+                    }
+                } finally {
+                    spawnGroup.scheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private void splitSpawnBatch(SpawnBatch spawnBatch) {
+        Map<ChunkKey, List<Integer>> indexMap = new LinkedHashMap<>();
+        for (int i = 0; i < spawnBatch.locations.length; i++) {
+            Location location = spawnBatch.locations[i];
+            if (location == null || location.getWorld() == null) {
+                spawnBatch.markDone();
+                continue;
+            }
+            indexMap.computeIfAbsent(new ChunkKey(location), key -> new ArrayList<>()).add(i);
+        }
+        indexMap.forEach((chunkKey, indexList) -> {
+            int[] indices = new int[indexList.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = indexList.get(i);
+            }
+            Location location = spawnBatch.locations[indices[0]];
+            spawnGroups.computeIfAbsent(chunkKey, key -> new SpawnGroup(location)).slices.add(new BatchSlice(spawnBatch, indices));
+        });
+    }
+
+    @Nullable
+    private Entity spawnNewEntity(Location location) {
+        Entity entity = pollPooledEntity(location);
+        if (entity == null) {
+            entity = createEntity(location);
+        }
+        if (entity != null) {
+            entities.add(entity);
+            entityQueue.add(entity);
+        }
+        return entity;
+    }
+
+    private void spawnEntity(SpawnRequest spawnRequest) {
+        Entity entity;
+        try {
+            entity = spawnNewEntity(spawnRequest.location);
+        } catch (Exception e) {
+            spawnRequest.completableFuture.completeExceptionally(e);
+            return;
+        }
+        if (entity == null) {
+            spawnRequest.completableFuture.completeExceptionally(new IllegalStateException("Cannot create the entity"));
+        } else {
+            spawnRequest.onSpawnConsumer.accept(entity);
+            spawnRequest.completableFuture.complete(entity);
+        }
+    }
+
+    private void spawnBatchEntity(SpawnBatch spawnBatch, int index) {
+        if (!spawnBatch.isCancelled()) {
+            try {
+                Entity entity = spawnNewEntity(spawnBatch.locations[index]);
+                if (entity != null) {
+                    spawnBatch.onSpawnConsumer.accept(entity);
+                    spawnBatch.spawned[index] = entity;
+                }
+            } catch (Exception e) {
+                JavaPlugin.getPlugin(GamesInTheBox.class).getLogger().log(Level.WARNING, e, () -> "Error when spawning the entity at " + spawnBatch.locations[index]);
+            }
+        }
+        spawnBatch.markDone();
+    }
+
+    @Nullable
+    private Entity pollPooledEntity(Location location) {
+        while (true) {
+            Entity entity = entityPool.poll();
+            if (entity == null) {
+                return null;
+            }
+            if (!pooledEntities.remove(entity) || !entity.isValid()) {
+                // Already dropped from the pool or discarded with its chunk
+                parkedPersistence.remove(entity);
+                continue;
+            }
+            boolean reused = resetEntity(entity, location);
+            parkedPersistence.remove(entity);
+            if (reused) {
+                return entity;
+            }
+            EntityUtil.despawnSafe(entity);
+        }
+    }
+
+    private void removeEntity(Entity entity) {
+        entities.remove(entity);
+        if (!FOLIA && entity.isValid() && pooledEntities.size() < poolSize.get()) {
+            boolean persistent = entity.isPersistent();
+            boolean parked;
+            try {
+                parked = parkEntity(entity);
+            } catch (Exception e) {
+                parked = false;
+            }
+            if (parked) {
+                parkedPersistence.put(entity, persistent);
+                pooledEntities.add(entity);
+                entityPool.add(entity);
+                return;
+            }
+        }
+        EntityUtil.despawnSafe(entity);
+    }
+
+    private void cancelSpawnRequests() {
+        IllegalStateException exception = new IllegalStateException("The task is cleared");
+        while (true) {
+            SpawnRequest spawnRequest = spawnRequestQueue.poll();
+            if (spawnRequest == null) {
+                break;
+            }
+            spawnRequest.completableFuture.completeExceptionally(exception);
+        }
+        while (true) {
+            SpawnBatch spawnBatch = spawnBatchQueue.poll();
+            if (spawnBatch == null) {
+                break;
+            }
+            spawnBatch.future.completeExceptionally(exception);
+        }
+        for (SpawnGroup spawnGroup : spawnGroups.values()) {
+            while (true) {
+                SpawnRequest spawnRequest = spawnGroup.requests.poll();
+                if (spawnRequest == null) {
+                    break;
+                }
+                spawnRequest.completableFuture.completeExceptionally(exception);
+            }
+            while (true) {
+                BatchSlice batchSlice = spawnGroup.slices.poll();
+                if (batchSlice == null) {
+                    break;
+                }
+                batchSlice.batch.future.completeExceptionally(exception);
+            }
+        }
     }
 
     /**
      * Stop the task to clear the entities
      */
     public void stopTask() {
-        Task currentTask = currentEntityTaskRef.getAndSet(null);
+        TimerWheel.Handle currentTask = currentEntityTaskRef.getAndSet(null);
         if (currentTask != null && !currentTask.isCancelled()) {
             currentTask.cancel();
         }
@@ -251,7 +612,8 @@ public abstract class EntityFeature implements Feature {
     }
 
     /**
-     * Set how many entities to spawn per tick
+     * Set how many entities to spawn per tick in each chunk.
+     * The spawn requests are grouped by chunk, and each chunk is spawned in a single task per tick on its own region.
      *
      * @param spawnRequestPerTick the amount
      */
@@ -259,32 +621,124 @@ public abstract class EntityFeature implements Feature {
         this.spawnRequestPerTick.set(spawnRequestPerTick);
     }
 
+    /**
+     * Set the maximum amount of parked entities to reuse.
+     * When it is more than 0, the removed entities are parked by {@link #parkEntity(Entity)} instead of being despawned,
+     * and the spawn requests reuse them by {@link #resetEntity(Entity, Location)} before creating new entities.
+     * The pool mode is ignored on Folia, as the parked entities cannot be moved between the regions synchronously.
+     *
+     * @param poolSize the pool size, or 0 to disable the pool mode
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize.set(Math.max(poolSize, 0));
+        if (poolSize > 0 && !FOLIA && poolListenerRegistered.compareAndSet(false, true)) {
+            Bukkit.getPluginManager().registerEvents(poolListener, JavaPlugin.getPlugin(GamesInTheBox.class));
+        }
+    }
+
+    /**
+     * Get the amount of parked entities
+     *
+     * @return the amount
+     */
+    public int countPooledEntities() {
+        return pooledEntities.size();
+    }
+
+    /**
+     * Despawn all the parked entities
+     */
+    public void clearPool() {
+        while (true) {
+            Entity entity = entityPool.poll();
+            if (entity == null) {
+                break;
+            }
+            if (pooledEntities.remove(entity)) {
+                parkedPersistence.remove(entity);
+                runEntityTask(entity, () -> EntityUtil.despawnSafe(entity));
+            }
+        }
+    }
+
+    /**
+     * Set how many entities to check against the clear checks per tick
+     *
+     * @param entityClearCheckPerTick the amount
+     */
+    public void setEntityClearCheckPerTick(int entityClearCheckPerTick) {
+        this.entityClearCheckPerTick.set(entityClearCheckPerTick);
+    }
+
+    /**
+     * Set the maximum time to check the entities against the clear checks per tick.
+     * The checks stop when either this budget or {@link #setEntityClearCheckPerTick(int)} is reached.
+     *
+     * @param entityClearCheckTimeBudget the time budget in nanoseconds, or 0 to only limit by the amount
+     */
+    public void setEntityClearCheckTimeBudget(long entityClearCheckTimeBudget) {
+        this.entityClearCheckTimeBudget.set(entityClearCheckTimeBudget);
+    }
+
+    /**
+     * Get the time the last full sweep took to check all the entities against the clear checks
+     *
+     * @return the time in nanoseconds, or -1 if no sweep has been completed
+     */
+    public long getLastSweepDuration() {
+        return lastSweepDuration.get();
+    }
+
     /**
      * Check if all the entities are cleared
      *
      * @return true if all the entities are cleared
      */
     public boolean isAllEntityCleared() {
-        return entityQueue.isEmpty() && spawnRequestQueue.isEmpty();
+        return entityQueue.isEmpty() && countSpawnRequests() == 0;
     }
 
     /**
-     * Clear all the entities
+     * Clear all the entities.
+     * Each entity is removed on its own scheduler, or right away if it is called on the main thread of a non-Folia server.
      */
     public void clearAllEntities() {
-        entities.forEach(EntityUtil::despawnSafe);
-        entities.clear();
+        clearAllEntities(true);
+    }
+
+    private void clearAllEntities(boolean park) {
+        for (Entity entity : new ArrayList<>(entities)) {
+            entities.remove(entity);
+            runEntityTask(entity, park ? () -> removeEntity(entity) : () -> EntityUtil.despawnSafe(entity));
+        }
         entityQueue.clear();
-        spawnRequestQueue.forEach(spawnRequest -> spawnRequest.completableFuture.completeExceptionally(new IllegalStateException("The task is cleared")));
-        spawnRequestQueue.clear();
+        cancelSpawnRequests();
+        spawnGroups.clear();
+    }
+
+    private void runEntityTask(Entity entity, Runnable runnable) {
+        Plugin plugin = JavaPlugin.getProvidingPlugin(EntityFeature.class);
+        if (!plugin.isEnabled() || (!FOLIA && Bukkit.isPrimaryThread())) {
+            runnable.run();
+        } else {
+            Scheduler.plugin(plugin).sync().runEntityTask(entity, runnable, () -> {
+            });
+        }
     }
 
     @Override
     public void clear() {
         stopTask();
         clearAllEntityClearChecks();
-        clearAllEntities();
+        clearAllEntities(false);
+        clearPool();
+        if (poolListenerRegistered.compareAndSet(true, false)) {
+            HandlerList.unregisterAll(poolListener);
+        }
         clearAllEntities.set(false);
+        sweepRemaining = 0;
+        sweepStartTime = -1;
+        lastSweepDuration.set(-1);
     }
 
     /**
@@ -310,4 +764,137 @@ public abstract class EntityFeature implements Feature {
             this.location = location;
         }
     }
+
+    /**
+     * The batch of the spawn requests for the {@link Entity}
+     */
+    public static final class SpawnBatch {
+        private final Location[] locations;
+        private final Consumer<Entity> onSpawnConsumer;
+        private final Entity[] spawned;
+        private final AtomicInteger remaining;
+        private final CompletableFuture<List<Entity>> future = new CompletableFuture<>();
+
+        private SpawnBatch(Location[] locations, Consumer<Entity> onSpawnConsumer) {
+            this.locations = locations;
+            this.onSpawnConsumer = onSpawnConsumer;
+            this.spawned = new Entity[locations.length];
+            this.remaining = new AtomicInteger(locations.length);
+        }
+
+        private void markDone() {
+            if (remaining.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            List<Entity> list = new ArrayList<>(spawned.length);
+            for (Entity entity : spawned) {
+                if (entity != null) {
+                    list.add(entity);
+                }
+            }
+            future.complete(list);
+        }
+
+        /**
+         * Get the future of the spawned entities
+         *
+         * @return the future
+         */
+        public CompletableFuture<List<Entity>> getFuture() {
+            return future;
+        }
+
+        /**
+         * Get the amount of the locations that are not processed yet
+         *
+         * @return the amount
+         */
+        public int getRemaining() {
+            return remaining.get();
+        }
+
+        /**
+         * Cancel the batch.
+         * The remaining locations are skipped and the future is cancelled.
+         * The entities that are already spawned are kept.
+         */
+        public void cancel() {
+            future.cancel(false);
+        }
+
+        /**
+         * Check if the batch is cancelled
+         *
+         * @return true if it is
+         */
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+    }
+
+    private static final class BatchSlice {
+        private final SpawnBatch batch;
+        private final int[] indices;
+        private volatile int cursor = 0;
+
+        private BatchSlice(SpawnBatch batch, int[] indices) {
+            this.batch = batch;
+            this.indices = indices;
+        }
+    }
+
+    private static final class ChunkKey {
+        private final World world;
+        private final int chunkX;
+        private final int chunkZ;
+
+        private ChunkKey(Location location) {
+            this.world = location.getWorld();
+            this.chunkX = location.getBlockX() >> 4;
+            this.chunkZ = location.getBlockZ() >> 4;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChunkKey)) return false;
+            ChunkKey chunkKey = (ChunkKey) o;
+            return chunkX == chunkKey.chunkX && chunkZ == chunkKey.chunkZ && world == chunkKey.world;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(world) + chunkX) + chunkZ;
+        }
+    }
+
+    private final class PoolListener implements Listener {
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onChunkUnload(ChunkUnloadEvent event) {
+            if (pooledEntities.isEmpty()) {
+                return;
+            }
+            for (Entity entity : event.getChunk().getEntities()) {
+                if (pooledEntities.remove(entity)) {
+                    parkedPersistence.remove(entity);
+                    entityPool.remove(entity);
+                    EntityUtil.despawnSafe(entity);
+                }
+            }
+        }
+    }
+
+    private static final class SpawnGroup {
+        private final Location location;
+        private final Queue<SpawnRequest> requests = new ConcurrentLinkedQueue<>();
+        private final Queue<BatchSlice> slices = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private SpawnGroup(Location location) {
+            this.location = location;
+        }
+    }
 }
@@ -16,10 +16,15 @@
 package me.hsgamer.gamesinthebox.game.feature;
 
 import com.cryptomorin.xseries.XMaterial;
+import com.google.common.base.Preconditions;
 import com.lewdev.probabilitylib.ProbabilityCollection;
 import io.github.projectunified.blockutil.api.BlockData;
+import me.hsgamer.gamesinthebox.util.AliasSampler;
+import me.hsgamer.gamesinthebox.util.BlockFillProcess;
 import me.hsgamer.gamesinthebox.util.BlockHandlerUtil;
+import me.hsgamer.hscore.minecraft.block.box.BlockBox;
 import me.hsgamer.minigamecore.base.Feature;
+import org.bukkit.World;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -31,6 +36,7 @@ import java.util.AbstractMap;
 public abstract class MaterialProbabilityFeature implements Feature {
     private ProbabilityCollection<XMaterial> materialCollection;
     private ProbabilityCollection<BlockData> blockDataCollection;
+    private AliasSampler<XMaterial> materialSampler;
     private boolean isInitialEmpty = false;
 
     /**
@@ -51,6 +57,7 @@ public abstract class MaterialProbabilityFeature implements Feature {
             this.isInitialEmpty = true;
             materialCollection.add(XMaterial.STONE, 1);
         }
+        this.materialSampler = AliasSampler.of(materialCollection.stream());
     }
 
     /**
@@ -60,7 +67,32 @@ public abstract class MaterialProbabilityFeature implements Feature {
      */
     @NotNull
     public XMaterial getRandomMaterial() {
-        return materialCollection.get();
+        Preconditions.checkNotNull(materialSampler, "The material sampler is null. The feature is not initialized.");
+        return materialSampler.sample();
+    }
+
+    /**
+     * Get the alias sampler of {@link XMaterial}
+     *
+     * @return the sampler
+     */
+    @NotNull
+    public AliasSampler<XMaterial> getMaterialSampler() {
+        Preconditions.checkNotNull(materialSampler, "The material sampler is null. The feature is not initialized.");
+        return materialSampler;
+    }
+
+    /**
+     * Fill the {@link BlockBox} with the random materials drawn from {@link #getMaterialSampler()}
+     *
+     * @param world    the world
+     * @param blockBox the block box
+     * @return the process
+     * @see BlockHandlerUtil#fill(World, BlockBox, AliasSampler, ProbabilityCollection)
+     */
+    @NotNull
+    public BlockFillProcess fill(@NotNull World world, @NotNull BlockBox blockBox) {
+        return BlockHandlerUtil.fill(world, blockBox, getMaterialSampler(), getBlockDataCollection());
     }
 
     /**
@@ -15,29 +15,44 @@
 */
 package me.hsgamer.gamesinthebox.game.feature;
 
+import me.hsgamer.gamesinthebox.game.feature.point.ArrayPointStore;
+import me.hsgamer.gamesinthebox.game.feature.point.PointStore;
+import me.hsgamer.gamesinthebox.util.PlayerNameUtil;
 import me.hsgamer.hscore.common.Pair;
 import me.hsgamer.minigamecore.base.Feature;
 import org.bukkit.Bukkit;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * The {@link Feature} that handles points of the players
  */
 public class PointFeature implements Feature {
-    private final Map<UUID, Integer> points = new IdentityHashMap<>();
+    private final PointStore points;
     private final PointConsumer pointConsumer;
+    private List<Pair<UUID, String>> topAsStringPair = Collections.emptyList();
+    private long topAsStringPairVersion = -1;
 
     /**
      * Create a new instance
      *
      * @param pointConsumer the consumer when the point of a player is changed
+     * @param pointStore    the storage of the points
      */
-    public PointFeature(@NotNull PointConsumer pointConsumer) {
+    public PointFeature(@NotNull PointConsumer pointConsumer, @NotNull PointStore pointStore) {
         this.pointConsumer = pointConsumer;
+        this.points = pointStore;
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @param pointConsumer the consumer when the point of a player is changed
+     */
+    public PointFeature(@NotNull PointConsumer pointConsumer) {
+        this(pointConsumer, new ArrayPointStore());
     }
 
     /**
@@ -58,14 +73,16 @@ public class PointFeature implements Feature {
      * @param point the point to apply
      */
     public void applyPoint(@NotNull UUID uuid, int point) {
+        PlayerNameUtil.cacheIfAbsent(uuid);
         if (point > 0) {
-            points.merge(uuid, point, Integer::sum);
-            pointConsumer.onChanged(uuid, point, getPoint(uuid));
+            int totalPoint = points.add(uuid, point);
+            pointConsumer.onChanged(uuid, point, totalPoint);
         } else if (point < 0) {
             int currentPoint = getPoint(uuid);
             if (currentPoint > 0) {
-                points.put(uuid, Math.max(0, currentPoint + point));
-                pointConsumer.onChanged(uuid, Math.max(point, -currentPoint), getPoint(uuid));
+                int totalPoint = Math.max(0, currentPoint + point);
+                points.set(uuid, totalPoint);
+                pointConsumer.onChanged(uuid, Math.max(point, -currentPoint), totalPoint);
             }
         } else {
             pointConsumer.onChanged(uuid, 0, getPoint(uuid));
@@ -79,7 +96,7 @@ public class PointFeature implements Feature {
      * @return the point of the player
      */
     public int getPoint(@NotNull UUID uuid) {
-        return points.getOrDefault(uuid, 0);
+        return points.get(uuid);
     }
 
     /**
@@ -89,13 +106,22 @@ public class PointFeature implements Feature {
      */
     @NotNull
     public Stream<Pair<UUID, Integer>> getPoints() {
-        if (points.isEmpty()) {
-            return Stream.empty();
-        }
-        return points.entrySet()
-                .stream()
-                .filter(entry -> entry.getValue() > 0)
-                .map(entry -> Pair.of(entry.getKey(), entry.getValue()));
+        List<Pair<UUID, Integer>> list = new ArrayList<>();
+        points.forEachPositive((uuid, point) -> list.add(Pair.of(uuid, point)));
+        return list.stream();
+    }
+
+    /**
+     * Get the top, sorted by the point
+     *
+     * @param limit the maximum size of the top, or a negative number for no limit
+     * @return the top
+     */
+    @NotNull
+    public Stream<Pair<UUID, Integer>> getTop(int limit) {
+        List<Pair<UUID, Integer>> list = new ArrayList<>();
+        points.forEachTop(limit, (uuid, point) -> list.add(Pair.of(uuid, point)));
+        return list.stream();
     }
 
     /**
@@ -105,9 +131,20 @@ public class PointFeature implements Feature {
      */
     @NotNull
     public Stream<Pair<UUID, Integer>> getTop() {
-        return getPoints()
-                .sorted(Comparator.<Pair<UUID, Integer>>comparingInt(Pair::getValue).reversed())
-                .map(entry -> Pair.of(entry.getKey(), entry.getValue()));
+        return getTop(-1);
+    }
+
+    /**
+     * Get the uuid part of the top
+     *
+     * @param limit the maximum size of the top, or a negative number for no limit
+     * @return the uuid part of the top
+     */
+    @NotNull
+    public Stream<UUID> getTopUUID(int limit) {
+        List<UUID> list = new ArrayList<>();
+        points.forEachTop(limit, (uuid, point) -> list.add(uuid));
+        return list.stream();
     }
 
     /**
@@ -117,26 +154,45 @@ public class PointFeature implements Feature {
      */
     @NotNull
     public Stream<UUID> getTopUUID() {
-        return getTop().map(Pair::getKey);
+        return getTopUUID(-1);
     }
 
     /**
-     * Get the top as string pair
+     * Get the top as string pair.
+     * The list is only rebuilt when the points are changed since the last call.
      *
      * @return the top as string pair
      */
     @NotNull
     public List<Pair<UUID, String>> getTopAsStringPair() {
-        return getTop()
-                .map(point -> Pair.of(point.getKey(), Integer.toString(point.getValue())))
-                .collect(Collectors.toList());
+        long version = points.getVersion();
+        synchronized (this) {
+            if (version != topAsStringPairVersion) {
+                List<Pair<UUID, String>> list = new ArrayList<>();
+                points.forEachTop(-1, (uuid, point) -> list.add(Pair.of(uuid, Integer.toString(point))));
+                topAsStringPair = Collections.unmodifiableList(list);
+                topAsStringPairVersion = version;
+            }
+            return topAsStringPair;
+        }
+    }
+
+    /**
+     * Get the version of the points.
+     * The version is changed every time the point of a player is changed,
+     * so it can be used to check if the top needs to be updated.
+     *
+     * @return the version
+     */
+    public long getPointVersion() {
+        return points.getVersion();
     }
 
     /**
      * Reset the point of the player if he/she is offline
      */
     public void resetPointIfNotOnline() {
-        points.replaceAll((uuid, point) -> Bukkit.getPlayer(uuid) == null ? 0 : point);
+        points.resetIf(uuid -> Bukkit.getPlayer(uuid) == null);
     }
 
     /**
@@ -16,11 +16,10 @@
 package me.hsgamer.gamesinthebox.game.feature;
 
 import com.google.common.base.Preconditions;
-import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
+import me.hsgamer.gamesinthebox.util.CommandDispatchUtil;
+import me.hsgamer.gamesinthebox.util.PlayerNameUtil;
 import me.hsgamer.hscore.common.Pair;
 import me.hsgamer.minigamecore.base.Feature;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
@@ -74,6 +73,30 @@ public abstract class RewardFeature implements Feature {
         return defaultCommands;
     }
 
+    /**
+     * Create the commands to reward the player
+     *
+     * @param topPosition the top position, starting from 1
+     * @param uuid        the uuid of the player
+     * @return the commands, or an empty list if the name of the player is unknown
+     */
+    @NotNull
+    public List<String> createCommands(int topPosition, @NotNull UUID uuid) {
+        return createCommands(topCommands, defaultCommands, topPosition, uuid);
+    }
+
+    private static List<String> createCommands(Map<Integer, List<String>> topCommands, List<String> defaultCommands, int topPosition, UUID uuid) {
+        String name = PlayerNameUtil.getName(uuid);
+        if (name == null) return Collections.emptyList();
+        List<String> template = topCommands.getOrDefault(topPosition, defaultCommands);
+        String top = Integer.toString(topPosition);
+        List<String> commands = new ArrayList<>(template.size());
+        for (String command : template) {
+            commands.add(command.replace("{name}", name).replace("{top}", top));
+        }
+        return commands;
+    }
+
     /**
      * Reward the player
      *
@@ -81,12 +104,7 @@ public abstract class RewardFeature implements Feature {
      * @param uuid        the uuid of the player
      */
     public void reward(int topPosition, @NotNull UUID uuid) {
-        OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
-        String name = offlinePlayer.getName();
-        if (name == null) return;
-        List<String> commands = new ArrayList<>(topCommands.getOrDefault(topPosition, defaultCommands));
-        commands.replaceAll(s -> s.replace("{name}", name).replace("{top}", Integer.toString(topPosition)));
-        Scheduler.providingPlugin(getClass()).sync().runTask(() -> commands.forEach(c -> Bukkit.dispatchCommand(Bukkit.getConsoleSender(), c)));
+        CommandDispatchUtil.dispatch(createCommands(topPosition, uuid));
     }
 
     /**
@@ -95,11 +113,7 @@ public abstract class RewardFeature implements Feature {
      * @param topMap the map of the top position and the list of uuids
      */
     public void reward(@NotNull Map<Integer, List<UUID>> topMap) {
-        topMap.forEach((topPosition, uuidList) -> {
-            for (UUID uuid : uuidList) {
-                reward(topPosition, uuid);
-            }
-        });
+        rewardBatch(topMap);
     }
 
     /**
@@ -108,9 +122,51 @@ public abstract class RewardFeature implements Feature {
      * @param topList the list of uuids, sorted by the top position
      */
     public void reward(@NotNull List<UUID> topList) {
-        for (int i = 0; i < topList.size(); i++) {
-            int top = i + 1;
-            reward(top, topList.get(i));
-        }
+        rewardBatch(topList);
+    }
+
+    /**
+     * Reward the players in a single batch.
+     * The commands are built asynchronously and dispatched with a limited amount of commands per tick.
+     *
+     * @param topMap the map of the top position and the list of uuids
+     * @return the batch, returned right away to report the progress of the dispatch
+     */
+    @NotNull
+    public CommandDispatchUtil.Batch rewardBatch(@NotNull Map<Integer, List<UUID>> topMap) {
+        Map<Integer, List<String>> topCommandsSnapshot = topCommands;
+        List<String> defaultCommandsSnapshot = defaultCommands;
+        Map<Integer, List<UUID>> copy = new LinkedHashMap<>();
+        topMap.forEach((topPosition, uuidList) -> copy.put(topPosition, new ArrayList<>(uuidList)));
+        return CommandDispatchUtil.dispatchAsync(() -> {
+            List<String> commands = new ArrayList<>();
+            copy.forEach((topPosition, uuidList) -> {
+                for (UUID uuid : uuidList) {
+                    commands.addAll(createCommands(topCommandsSnapshot, defaultCommandsSnapshot, topPosition, uuid));
+                }
+            });
+            return commands;
+        });
+    }
+
+    /**
+     * Reward the players in a single batch.
+     * The commands are built asynchronously and dispatched with a limited amount of commands per tick.
+     *
+     * @param topList the list of uuids, sorted by the top position
+     * @return the batch, returned right away to report the progress of the dispatch
+     */
+    @NotNull
+    public CommandDispatchUtil.Batch rewardBatch(@NotNull List<UUID> topList) {
+        Map<Integer, List<String>> topCommandsSnapshot = topCommands;
+        List<String> defaultCommandsSnapshot = defaultCommands;
+        List<UUID> copy = new ArrayList<>(topList);
+        return CommandDispatchUtil.dispatchAsync(() -> {
+            List<String> commands = new ArrayList<>();
+            for (int i = 0; i < copy.size(); i++) {
+                commands.addAll(createCommands(topCommandsSnapshot, defaultCommandsSnapshot, i + 1, copy.get(i)));
+            }
+            return commands;
+        });
     }
 }
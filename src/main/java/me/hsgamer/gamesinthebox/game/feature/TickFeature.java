@@ -15,14 +15,18 @@
 */
 package me.hsgamer.gamesinthebox.game.feature;
 
+import me.hsgamer.gamesinthebox.util.ClockUtil;
 import me.hsgamer.minigamecore.base.Feature;
 
+import java.util.concurrent.TimeUnit;
+
 /**
- * The {@link Feature} to handle ticks
+ * The {@link Feature} to handle ticks.
+ * The ticks are counted on the monotonic clock of {@link ClockUtil}.
  */
 public abstract class TickFeature implements Feature {
     private long delayPerTicks;
-    private long lastTick;
+    private ClockUtil.Accumulator accumulator;
 
     /**
      * Create the delay per ticks
@@ -34,7 +38,7 @@ public abstract class TickFeature implements Feature {
     @Override
     public void postInit() {
         this.delayPerTicks = createDelayPerTicks();
-        this.lastTick = System.currentTimeMillis();
+        this.accumulator = ClockUtil.newAccumulator(delayPerTicks, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -49,22 +53,20 @@ public abstract class TickFeature implements Feature {
     /**
      * Get the passed ticks.
      * This will get the passed ticks since the last call of this method.
+     * The remaining time is carried to the next call, and the missed ticks are capped by "clock.max-catch-up-ticks".
      *
      * @return the passed ticks
      */
     public int getPassedTicks() {
-        long current = System.currentTimeMillis();
-        long difference = current - lastTick;
-        int passed = (int) (difference / delayPerTicks);
-        long remaining = difference % delayPerTicks;
-        lastTick = current - remaining;
-        return passed;
+        return accumulator == null ? 0 : accumulator.poll();
     }
 
     /**
      * Reset the tick
      */
     public void reset() {
-        this.lastTick = System.currentTimeMillis();
+        if (accumulator != null) {
+            accumulator.reset();
+        }
     }
 }
@@ -19,19 +19,14 @@ import me.hsgamer.hscore.common.Pair;
 import me.hsgamer.minigamecore.base.Feature;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
 /**
  * The {@link Feature} that handles the top / leaderboard
  */
 public class TopFeature implements Feature {
-    private final AtomicReference<List<Pair<UUID, String>>> top = new AtomicReference<>(Collections.emptyList());
-    private final AtomicReference<List<UUID>> topUUIDs = new AtomicReference<>(Collections.emptyList());
+    private final AtomicReference<TopSnapshot> snapshot = new AtomicReference<>(TopSnapshot.EMPTY);
 
     /**
      * Get the current top
@@ -40,7 +35,17 @@ public class TopFeature implements Feature {
      */
     @NotNull
     public List<Pair<UUID, String>> getTop() {
-        return top.get();
+        return snapshot.get().top;
+    }
+
+    /**
+     * Get the current snapshot of the top
+     *
+     * @return the snapshot
+     */
+    @NotNull
+    public TopSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
     /**
@@ -49,8 +54,7 @@ public class TopFeature implements Feature {
      * @param top the top
      */
     public void setTop(@NotNull List<Pair<UUID, String>> top) {
-        this.top.lazySet(top);
-        this.topUUIDs.lazySet(top.stream().map(Pair::getKey).collect(Collectors.toList()));
+        this.snapshot.lazySet(top.isEmpty() ? TopSnapshot.EMPTY : new TopSnapshot(top));
     }
 
     /**
@@ -60,7 +64,7 @@ public class TopFeature implements Feature {
      * @return the index or -1 if not found
      */
     public int getTopIndex(@NotNull UUID uuid) {
-        return topUUIDs.get().indexOf(uuid);
+        return snapshot.get().getIndex(uuid);
     }
 
     /**
@@ -71,11 +75,75 @@ public class TopFeature implements Feature {
      */
     @NotNull
     public Optional<Pair<UUID, String>> getTop(int index) {
-        List<Pair<UUID, String>> getTopSnapshot = getTop();
-        if (index < 0 || index >= getTopSnapshot.size()) {
-            return Optional.empty();
-        } else {
-            return Optional.of(getTopSnapshot.get(index));
+        return snapshot.get().get(index);
+    }
+
+    /**
+     * The immutable snapshot of the top.
+     * It holds both the ordered top and the index of each UUID in the top.
+     */
+    public static final class TopSnapshot {
+        /**
+         * The empty snapshot
+         */
+        public static final TopSnapshot EMPTY = new TopSnapshot(Collections.emptyList());
+
+        private final List<Pair<UUID, String>> top;
+        private final Map<UUID, Integer> indexMap;
+
+        private TopSnapshot(List<Pair<UUID, String>> top) {
+            List<Pair<UUID, String>> list = new ArrayList<>(top);
+            Map<UUID, Integer> map = new HashMap<>(Math.max(16, (int) (list.size() / 0.75f) + 1));
+            for (int i = 0; i < list.size(); i++) {
+                map.putIfAbsent(list.get(i).getKey(), i);
+            }
+            this.top = Collections.unmodifiableList(list);
+            this.indexMap = map;
+        }
+
+        /**
+         * Get the ordered top
+         *
+         * @return the top
+         */
+        @NotNull
+        public List<Pair<UUID, String>> getTop() {
+            return top;
+        }
+
+        /**
+         * Get the index of the UUID in the top
+         *
+         * @param uuid the UUID
+         * @return the index or -1 if not found
+         */
+        public int getIndex(@NotNull UUID uuid) {
+            Integer index = indexMap.get(uuid);
+            return index == null ? -1 : index;
+        }
+
+        /**
+         * Get the pair of the UUID and the value in the top
+         *
+         * @param index the index
+         * @return the pair or empty if out of range
+         */
+        @NotNull
+        public Optional<Pair<UUID, String>> get(int index) {
+            if (index < 0 || index >= top.size()) {
+                return Optional.empty();
+            } else {
+                return Optional.of(top.get(index));
+            }
+        }
+
+        /**
+         * Get the size of the top
+         *
+         * @return the size
+         */
+        public int size() {
+            return top.size();
         }
     }
 }
@@ -0,0 +1,204 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.game.feature.point;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * The {@link PointStore} that stores the points in a primitive array.
+ * Each player is assigned to a slot of the array on the first time the point is applied,
+ * so applying and getting the point does not box the value.
+ * The slots are also kept sorted by their points on every change,
+ * so the top can be read without sorting the whole store.
+ */
+public class ArrayPointStore implements PointStore {
+    private static final int DEFAULT_CAPACITY = 16;
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private UUID[] uuids;
+    private int[] points;
+    private int[] order;
+    private int[] ranks;
+    private int size = 0;
+    private long version = 0;
+
+    /**
+     * Create a new store
+     *
+     * @param initialCapacity the initial amount of players to allocate the slots
+     */
+    public ArrayPointStore(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.uuids = new UUID[capacity];
+        this.points = new int[capacity];
+        this.order = new int[capacity];
+        this.ranks = new int[capacity];
+    }
+
+    /**
+     * Create a new store
+     */
+    public ArrayPointStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    private int getSlot(UUID uuid) {
+        Integer slot = slots.get(uuid);
+        return slot == null ? -1 : slot;
+    }
+
+    private int getOrCreateSlot(UUID uuid) {
+        int slot = getSlot(uuid);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (size == points.length) {
+            int newCapacity = points.length << 1;
+            uuids = Arrays.copyOf(uuids, newCapacity);
+            points = Arrays.copyOf(points, newCapacity);
+            order = Arrays.copyOf(order, newCapacity);
+            ranks = Arrays.copyOf(ranks, newCapacity);
+        }
+        slot = size++;
+        uuids[slot] = uuid;
+        order[slot] = slot;
+        ranks[slot] = slot;
+        slots.put(uuid, slot);
+        return slot;
+    }
+
+    private void reorder(int slot) {
+        int rank = ranks[slot];
+        int point = points[slot];
+        int target;
+        if (rank > 0 && points[order[rank - 1]] < point) {
+            int low = 0;
+            int high = rank - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (points[order[mid]] < point) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            target = low;
+            System.arraycopy(order, target, order, target + 1, rank - target);
+        } else if (rank < size - 1 && points[order[rank + 1]] > point) {
+            int low = rank + 1;
+            int high = size - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (points[order[mid]] > point) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            target = low;
+            System.arraycopy(order, rank + 1, order, rank, target - rank);
+        } else {
+            return;
+        }
+        order[target] = slot;
+        int from = Math.min(rank, target);
+        int to = Math.max(rank, target);
+        for (int i = from; i <= to; i++) {
+            ranks[order[i]] = i;
+        }
+    }
+
+    @Override
+    public synchronized int get(@NotNull UUID uuid) {
+        int slot = getSlot(uuid);
+        return slot < 0 ? 0 : points[slot];
+    }
+
+    @Override
+    public synchronized int add(@NotNull UUID uuid, int point) {
+        int slot = getOrCreateSlot(uuid);
+        points[slot] += point;
+        if (point != 0) {
+            reorder(slot);
+            version++;
+        }
+        return points[slot];
+    }
+
+    @Override
+    public synchronized void set(@NotNull UUID uuid, int point) {
+        int slot = getOrCreateSlot(uuid);
+        if (points[slot] != point) {
+            points[slot] = point;
+            reorder(slot);
+            version++;
+        }
+    }
+
+    @Override
+    public synchronized void resetIf(@NotNull Predicate<@NotNull UUID> predicate) {
+        for (int slot = 0; slot < size; slot++) {
+            if (points[slot] != 0 && predicate.test(uuids[slot])) {
+                points[slot] = 0;
+                reorder(slot);
+                version++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void forEachPositive(@NotNull ObjIntConsumer<@NotNull UUID> consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            int point = points[slot];
+            if (point > 0) {
+                consumer.accept(uuids[slot], point);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void forEachTop(int limit, @NotNull ObjIntConsumer<@NotNull UUID> consumer) {
+        int max = limit < 0 ? size : Math.min(limit, size);
+        for (int rank = 0; rank < max; rank++) {
+            int slot = order[rank];
+            int point = points[slot];
+            if (point <= 0) {
+                break;
+            }
+            consumer.accept(uuids[slot], point);
+        }
+    }
+
+    @Override
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(uuids, 0, size, null);
+        Arrays.fill(points, 0, size, 0);
+        slots.clear();
+        size = 0;
+        version++;
+    }
+}
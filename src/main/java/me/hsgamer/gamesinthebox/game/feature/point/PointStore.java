@@ -0,0 +1,87 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.game.feature.point;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * The storage of the points of the players
+ */
+public interface PointStore {
+    /**
+     * Get the point of the player
+     *
+     * @param uuid the uuid of the player
+     * @return the point, or 0 if the player has no point
+     */
+    int get(@NotNull UUID uuid);
+
+    /**
+     * Add the point to the player
+     *
+     * @param uuid  the uuid of the player
+     * @param point the point to add
+     * @return the total point after adding
+     */
+    int add(@NotNull UUID uuid, int point);
+
+    /**
+     * Set the point of the player
+     *
+     * @param uuid  the uuid of the player
+     * @param point the point
+     */
+    void set(@NotNull UUID uuid, int point);
+
+    /**
+     * Reset the point of the players that match the predicate to 0
+     *
+     * @param predicate the predicate
+     */
+    void resetIf(@NotNull Predicate<@NotNull UUID> predicate);
+
+    /**
+     * Iterate the players that have positive points
+     *
+     * @param consumer the consumer of the uuid and the point
+     */
+    void forEachPositive(@NotNull ObjIntConsumer<@NotNull UUID> consumer);
+
+    /**
+     * Iterate the players that have positive points, sorted from the highest point to the lowest
+     *
+     * @param limit    the maximum amount of players to iterate, or a negative number for no limit
+     * @param consumer the consumer of the uuid and the point
+     */
+    void forEachTop(int limit, @NotNull ObjIntConsumer<@NotNull UUID> consumer);
+
+    /**
+     * Get the version of the store.
+     * The version is changed every time a point in the store is changed.
+     *
+     * @return the version
+     */
+    long getVersion();
+
+    /**
+     * Clear all points
+     */
+    void clear();
+}
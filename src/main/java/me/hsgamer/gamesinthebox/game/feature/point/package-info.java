@@ -0,0 +1,4 @@
+/**
+ * Contains the storages of points for {@link me.hsgamer.gamesinthebox.game.feature.PointFeature}
+ */
+package me.hsgamer.gamesinthebox.game.feature.point;
\ No newline at end of file
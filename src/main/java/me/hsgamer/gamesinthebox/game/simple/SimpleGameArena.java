@@ -23,12 +23,12 @@ import me.hsgamer.gamesinthebox.game.simple.feature.SimplePointFeature;
 import me.hsgamer.gamesinthebox.game.simple.feature.SimpleRewardFeature;
 import me.hsgamer.gamesinthebox.game.simple.feature.SimpleUpdateFeature;
 import me.hsgamer.gamesinthebox.planner.Planner;
+import me.hsgamer.gamesinthebox.util.PlayerNameUtil;
+import me.hsgamer.gamesinthebox.util.QueryCache;
 import me.hsgamer.gamesinthebox.util.TimeUtil;
 import me.hsgamer.hscore.common.Pair;
 import me.hsgamer.minigamecore.base.Feature;
 import me.hsgamer.minigamecore.implementation.feature.TimerFeature;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -61,6 +61,7 @@ import java.util.*;
  * </ul>
  */
 public abstract class SimpleGameArena extends GameArena {
+    private static final QueryCache<Query> QUERY_CACHE = new QueryCache<>(Query::parse);
     private final SimpleGame game;
     private SimpleGameArenaAction gameAction;
 
@@ -139,49 +140,52 @@ public abstract class SimpleGameArena extends GameArena {
 
     @Override
     public @Nullable String replace(@NotNull String input) {
-        String lowerCase = input.toLowerCase();
-        if (input.equalsIgnoreCase("time_left")) {
-            return Optional.ofNullable(getFeature(TimerFeature.class))
-                    .map(TimerFeature::getDuration)
-                    .map(TimeUtil::formatStandardTime)
-                    .orElse("N/A");
-        } else if (input.equalsIgnoreCase("min_players_to_reward")) {
-            return Optional.ofNullable(getFeature(SimpleRewardFeature.class))
-                    .map(SimpleRewardFeature::getMinPlayersToReward)
-                    .filter(integer -> integer >= 0)
-                    .map(Objects::toString)
-                    .orElse("N/A");
-        } else if (lowerCase.startsWith("point_")) {
-            String pointName = lowerCase.substring(6);
-            return Optional.ofNullable(getFeature(SimplePointFeature.class))
-                    .flatMap(simplePointFeature -> simplePointFeature.getPoint(pointName))
-                    .map(Objects::toString)
-                    .orElse("N/A");
-        } else if (lowerCase.startsWith("top_")) {
-            TopFeature topFeature = getFeature(TopFeature.class);
-            if (topFeature == null) {
-                return "N/A";
-            }
-
-            if (lowerCase.startsWith("top_value_")) {
-                int index = Integer.parseInt(lowerCase.substring(10)) - 1;
-                return topFeature.getTop(index).map(Pair::getValue).map(Objects::toString).orElse("---");
-            } else if (lowerCase.startsWith("top_name_")) {
-                int index = Integer.parseInt(lowerCase.substring(9)) - 1;
-                return topFeature.getTop(index).map(Pair::getKey).map(Bukkit::getOfflinePlayer).map(OfflinePlayer::getName).orElse("---");
+        Query query = QUERY_CACHE.get(input);
+        switch (query.type) {
+            case TIME_LEFT:
+                return Optional.ofNullable(getFeature(TimerFeature.class))
+                        .map(TimerFeature::getDuration)
+                        .map(TimeUtil::formatStandardTime)
+                        .orElse("N/A");
+            case MIN_PLAYERS_TO_REWARD:
+                return Optional.ofNullable(getFeature(SimpleRewardFeature.class))
+                        .map(SimpleRewardFeature::getMinPlayersToReward)
+                        .filter(integer -> integer >= 0)
+                        .map(Objects::toString)
+                        .orElse("N/A");
+            case POINT_VALUE:
+                return Optional.ofNullable(getFeature(SimplePointFeature.class))
+                        .flatMap(simplePointFeature -> simplePointFeature.getPoint(query.name))
+                        .map(Objects::toString)
+                        .orElse("N/A");
+            case TOP_VALUE:
+            case TOP_NAME: {
+                TopFeature topFeature = getFeature(TopFeature.class);
+                if (topFeature == null) {
+                    return "N/A";
+                }
+                if (query.type == QueryType.TOP_VALUE) {
+                    return topFeature.getTop(query.index).map(Pair::getValue).map(Objects::toString).orElse("---");
+                } else {
+                    return topFeature.getTop(query.index).map(Pair::getKey).map(PlayerNameUtil::getCachedName).orElse("---");
+                }
             }
+            case INVALID_TOP:
+                return "N/A";
+            default:
+                return null;
         }
-        return null;
     }
 
     @Override
     public @Nullable String replace(@NotNull String input, @NotNull UUID uuid) {
-        if (input.equalsIgnoreCase("point")) {
+        Query query = QUERY_CACHE.get(input);
+        if (query.type == QueryType.POINT) {
             return Optional.ofNullable(getFeature(PointFeature.class))
                     .map(pointFeature -> pointFeature.getPoint(uuid))
                     .map(Objects::toString)
                     .orElse("N/A");
-        } else if (input.equalsIgnoreCase("top")) {
+        } else if (query.type == QueryType.TOP) {
             return Optional.ofNullable(getFeature(TopFeature.class))
                     .map(pointFeature -> pointFeature.getTopIndex(uuid) + 1)
                     .map(Objects::toString)
@@ -189,4 +193,76 @@ public abstract class SimpleGameArena extends GameArena {
         }
         return super.replace(input, uuid);
     }
+
+    @Override
+    public boolean isPlayerScoped(@NotNull String query) {
+        switch (QUERY_CACHE.get(query).type) {
+            case POINT:
+            case TOP:
+            case UNKNOWN:
+                return super.isPlayerScoped(query);
+            default:
+                return false;
+        }
+    }
+
+    private enum QueryType {
+        TIME_LEFT,
+        MIN_PLAYERS_TO_REWARD,
+        POINT_VALUE,
+        TOP_VALUE,
+        TOP_NAME,
+        INVALID_TOP,
+        POINT,
+        TOP,
+        UNKNOWN
+    }
+
+    /**
+     * The parsed replacement query
+     */
+    private static final class Query {
+        private static final Query UNKNOWN = new Query(QueryType.UNKNOWN, null, -1);
+        private final QueryType type;
+        private final String name;
+        private final int index;
+
+        private Query(QueryType type, String name, int index) {
+            this.type = type;
+            this.name = name;
+            this.index = index;
+        }
+
+        private static Query parseIndex(QueryType type, String indexString) {
+            try {
+                return new Query(type, null, Integer.parseInt(indexString) - 1);
+            } catch (NumberFormatException e) {
+                return new Query(QueryType.INVALID_TOP, null, -1);
+            }
+        }
+
+        private static Query parse(String input) {
+            String lowerCase = input.toLowerCase();
+            switch (lowerCase) {
+                case "time_left":
+                    return new Query(QueryType.TIME_LEFT, null, -1);
+                case "min_players_to_reward":
+                    return new Query(QueryType.MIN_PLAYERS_TO_REWARD, null, -1);
+                case "point":
+                    return new Query(QueryType.POINT, null, -1);
+                case "top":
+                    return new Query(QueryType.TOP, null, -1);
+                default:
+                    break;
+            }
+            if (lowerCase.startsWith("point_")) {
+                return new Query(QueryType.POINT_VALUE, lowerCase.substring(6), -1);
+            } else if (lowerCase.startsWith("top_value_")) {
+                return parseIndex(QueryType.TOP_VALUE, lowerCase.substring(10));
+            } else if (lowerCase.startsWith("top_name_")) {
+                return parseIndex(QueryType.TOP_NAME, lowerCase.substring(9));
+            }
+            return UNKNOWN;
+        }
+    }
 }
@@ -38,6 +38,7 @@ import org.bukkit.command.CommandSender;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -140,7 +141,10 @@ public class DescriptiveHologramFeature implements Feature {
      * Initialize the holograms
      */
     public void initHologram() {
-        hologramUpdaters.forEach(hologramUpdater -> HologramFeature.reInit(hologramUpdater.hologram));
+        hologramUpdaters.forEach(hologramUpdater -> {
+            HologramFeature.reInit(hologramUpdater.hologram);
+            hologramUpdater.resetRenderedLines();
+        });
     }
 
     /**
@@ -154,7 +158,28 @@ public class DescriptiveHologramFeature implements Feature {
      * Clear the holograms
      */
     public void clearHologram() {
-        hologramUpdaters.forEach(hologramUpdater -> HologramFeature.clearIfInitialized(hologramUpdater.hologram));
+        hologramUpdaters.forEach(hologramUpdater -> {
+            HologramFeature.clearIfInitialized(hologramUpdater.hologram);
+            hologramUpdater.resetRenderedLines();
+        });
+    }
+
+    /**
+     * Get the amount of lines that were skipped because their content was not changed
+     *
+     * @return the amount of skipped lines
+     */
+    public long getSkippedLineCount() {
+        return hologramUpdaters.stream().mapToLong(HologramUpdater::getSkippedLineCount).sum();
+    }
+
+    /**
+     * Get the amount of lines that were pushed to the holograms because their content was changed
+     *
+     * @return the amount of changed lines
+     */
+    public long getChangedLineCount() {
+        return hologramUpdaters.stream().mapToLong(HologramUpdater::getChangedLineCount).sum();
     }
 
     /**
@@ -410,7 +435,8 @@ public class DescriptiveHologramFeature implements Feature {
     }
 
     /**
-     * The updater for the hologram
+     * The updater for the hologram.
+     * It keeps the last rendered text of the lines and only pushes the lines that were changed.
      */
     public class HologramUpdater {
         @NotNull
@@ -419,23 +445,70 @@ public class DescriptiveHologramFeature implements Feature {
         public final List<String> lines;
         @NotNull
         public final List<String> rawLines;
+        private final List<VariableFeature.Template> templates;
+        private final AtomicLong skippedLineCount = new AtomicLong();
+        private final AtomicLong changedLineCount = new AtomicLong();
+        private volatile String[] renderedLines;
 
         private HologramUpdater(@NotNull Hologram<Location> hologram, @NotNull List<String> lines, @NotNull List<String> rawLines) {
             this.hologram = hologram;
             this.lines = lines;
             this.rawLines = rawLines;
+            VariableFeature variableFeature = arena.getFeature(VariableFeature.class);
+            this.templates = lines.stream().map(variableFeature::compile).collect(Collectors.toList());
         }
 
         private void update() {
             if (!hologram.isInitialized()) {
                 return;
             }
-            List<HologramLine> replacedLines = lines.stream()
-                    .map(line -> arena.getFeature(VariableFeature.class).replace(line))
-                    .map(ColorUtils::colorize)
-                    .map(TextHologramLine::new)
-                    .collect(Collectors.toList());
-            hologram.setLines(replacedLines);
+            String[] newLines = new String[templates.size()];
+            for (int i = 0; i < newLines.length; i++) {
+                newLines[i] = ColorUtils.colorize(templates.get(i).render());
+            }
+
+            String[] oldLines = renderedLines;
+            if (oldLines == null || oldLines.length != newLines.length) {
+                List<HologramLine> replacedLines = new ArrayList<>(newLines.length);
+                for (String line : newLines) {
+                    replacedLines.add(new TextHologramLine(line));
+                }
+                hologram.setLines(replacedLines);
+                changedLineCount.addAndGet(newLines.length);
+            } else {
+                int changed = 0;
+                for (int i = 0; i < newLines.length; i++) {
+                    if (!newLines[i].equals(oldLines[i])) {
+                        hologram.setLine(i, new TextHologramLine(newLines[i]));
+                        changed++;
+                    }
+                }
+                changedLineCount.addAndGet(changed);
+                skippedLineCount.addAndGet(newLines.length - changed);
+            }
+            renderedLines = newLines;
+        }
+
+        private void resetRenderedLines() {
+            renderedLines = null;
+        }
+
+        /**
+         * Get the amount of lines that were skipped because their content was not changed
+         *
+         * @return the amount of skipped lines
+         */
+        public long getSkippedLineCount() {
+            return skippedLineCount.get();
+        }
+
+        /**
+         * Get the amount of lines that were pushed to the hologram because their content was changed
+         *
+         * @return the amount of changed lines
+         */
+        public long getChangedLineCount() {
+            return changedLineCount.get();
         }
     }
 }
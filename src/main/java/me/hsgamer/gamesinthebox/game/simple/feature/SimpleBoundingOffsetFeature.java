@@ -45,6 +45,7 @@ import java.util.concurrent.atomic.AtomicReference;
  *       max-y: 0.0
  *       min-z: 0.0
  *       max-z: 0.0
+ *       scan-standable: false
  * </pre>
  */
 public class SimpleBoundingOffsetFeature extends BoundingOffsetFeature {
@@ -97,6 +98,14 @@ public class SimpleBoundingOffsetFeature extends BoundingOffsetFeature {
         return new Editor("box-offset", "Bounding Offset", "");
     }
 
+    @Override
+    protected boolean shouldScanStandable() {
+        GameConfigFeature configFeature = arena.getFeature(GameConfigFeature.class);
+        return Optional.ofNullable(configFeature.getString(path + ".scan-standable"))
+                .map(Boolean::parseBoolean)
+                .orElse(false);
+    }
+
     @Override
     protected @NotNull OffsetSetting createOffsetSetting() {
         GameConfigFeature configFeature = arena.getFeature(GameConfigFeature.class);
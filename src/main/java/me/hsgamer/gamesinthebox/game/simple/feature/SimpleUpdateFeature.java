@@ -15,24 +15,29 @@
 */
 package me.hsgamer.gamesinthebox.game.simple.feature;
 
+import me.hsgamer.gamesinthebox.GamesInTheBox;
 import me.hsgamer.gamesinthebox.game.feature.TopFeature;
 import me.hsgamer.gamesinthebox.game.simple.SimpleGameArena;
 import me.hsgamer.gamesinthebox.planner.feature.PluginFeature;
-import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
-import me.hsgamer.hscore.bukkit.scheduler.Task;
+import me.hsgamer.gamesinthebox.util.PlayerNameUtil;
+import me.hsgamer.gamesinthebox.util.TimerWheel;
+import me.hsgamer.hscore.common.Pair;
 import me.hsgamer.minigamecore.base.Feature;
-import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * The {@link Feature} that updates the arena
  */
 public class SimpleUpdateFeature implements Feature {
-    private final Plugin plugin;
+    private final GamesInTheBox plugin;
     private final SimpleGameArena arena;
-    private Task task;
+    private TimerWheel.Handle task;
+    private long lastPointVersion = -1;
 
     /**
      * Create a new {@link SimpleUpdateFeature}
@@ -49,14 +54,21 @@ public class SimpleUpdateFeature implements Feature {
      */
     public void initState() {
         arena.getFeature(DescriptiveHologramFeature.class).initHologram();
-        task = Scheduler.plugin(plugin).async().runTaskTimer(this::updateState, 0L, 20L);
+        task = plugin.getTimerWheel().schedule("update:" + arena.getName(), this::updateState, 1L, 20L);
     }
 
     /**
      * Update the state
      */
     private void updateState() {
-        arena.getFeature(TopFeature.class).setTop(arena.getFeature(SimplePointFeature.class).getTopAsStringPair());
+        SimplePointFeature pointFeature = arena.getFeature(SimplePointFeature.class);
+        long pointVersion = pointFeature.getPointVersion();
+        if (pointVersion != lastPointVersion) {
+            lastPointVersion = pointVersion;
+            List<Pair<UUID, String>> top = pointFeature.getTopAsStringPair();
+            arena.getFeature(TopFeature.class).setTop(top);
+            PlayerNameUtil.prefetch(top.stream().map(Pair::getKey).collect(Collectors.toList()));
+        }
         arena.getFeature(DescriptiveHologramFeature.class).updateHologram();
     }
 
@@ -69,6 +81,7 @@ public class SimpleUpdateFeature implements Feature {
         }
         arena.getFeature(SimplePointFeature.class).clearPoints();
         arena.getFeature(TopFeature.class).setTop(Collections.emptyList());
+        lastPointVersion = -1;
         arena.getFeature(DescriptiveHologramFeature.class).clearHologram();
     }
 
@@ -15,6 +15,7 @@
 */
 package me.hsgamer.gamesinthebox.game.template;
 
+import me.hsgamer.gamesinthebox.game.feature.ArenaTickFeature;
 import me.hsgamer.gamesinthebox.game.simple.SimpleGameArena;
 import me.hsgamer.gamesinthebox.game.simple.SimpleGameArenaAction;
 import me.hsgamer.gamesinthebox.game.simple.feature.SimpleUpdateFeature;
@@ -76,7 +77,7 @@ public class TemplateGameArena extends SimpleGameArena {
 
     @Override
     protected void onFailedToReward(@NotNull List<UUID> uuids) {
-        String notEnoughPlayerMessage = getFeature(VariableFeature.class).replace(gameLogic.getGameMessageConfig().getNotEnoughPlayerToReward());
+        String notEnoughPlayerMessage = getFeature(VariableFeature.class).getTemplate(gameLogic.getGameMessageConfig().getNotEnoughPlayerToReward()).render();
         for (UUID uuid : uuids) {
             MessageUtils.sendMessage(uuid, notEnoughPlayerMessage);
         }
@@ -137,11 +138,13 @@ public class TemplateGameArena extends SimpleGameArena {
     @Override
     public void start() {
         getFeature(CooldownFeature.class).setCanStart(true);
+        getFeature(ArenaTickFeature.class).resume();
     }
 
     @Override
     public void end() {
         setNextState(IdlingState.class);
+        getFeature(ArenaTickFeature.class).resume();
         getFeature(ArenaLogicFeature.class).getArenaLogic().forceEnd();
         getFeature(SimpleUpdateFeature.class).clearState();
     }
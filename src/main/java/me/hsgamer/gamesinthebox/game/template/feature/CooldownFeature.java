@@ -35,7 +35,7 @@ public class CooldownFeature implements Feature {
     private long waitingTime = 60000L;
     private long inGameTime = 300000L;
     private long endingTime = 10000L;
-    private boolean canStart = false;
+    private volatile boolean canStart = false;
 
     /**
      * Create a new {@link CooldownFeature}
@@ -46,7 +46,7 @@ public class EndingState implements GameState, ColoredDisplayName {
 
     @Override
     public void start(Arena arena) {
-        String endMessage = arena.getFeature(VariableFeature.class).replace(gameLogic.getGameMessageConfig().getEndBroadcast());
+        String endMessage = arena.getFeature(VariableFeature.class).getTemplate(gameLogic.getGameMessageConfig().getEndBroadcast()).render();
         Bukkit.getOnlinePlayers().forEach(player -> MessageUtils.sendMessage(player, endMessage));
         arena.getFeature(ArenaLogicFeature.class).getArenaLogic().onEndingStart();
         arena.getFeature(CooldownFeature.class).start(this);
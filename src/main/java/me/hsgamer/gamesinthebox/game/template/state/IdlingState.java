@@ -15,6 +15,7 @@
 */
 package me.hsgamer.gamesinthebox.game.template.state;
 
+import me.hsgamer.gamesinthebox.game.feature.ArenaTickFeature;
 import me.hsgamer.gamesinthebox.game.template.TemplateGameLogic;
 import me.hsgamer.gamesinthebox.game.template.feature.CooldownFeature;
 import me.hsgamer.minigamecore.base.Arena;
@@ -24,6 +25,7 @@ import me.hsgamer.minigamecore.bukkit.extra.ColoredDisplayName;
 /**
  * The idling state.
  * The arena will be in this state while waiting for the {@link me.hsgamer.gamesinthebox.planner.Planner} to start the game.
+ * The updates of the arena are paused in this state, and resumed when the game is started.
  */
 public class IdlingState implements GameState, ColoredDisplayName {
     private final TemplateGameLogic gameLogic;
@@ -39,7 +41,14 @@ public class IdlingState implements GameState, ColoredDisplayName {
 
     @Override
     public void start(Arena arena) {
-        arena.getFeature(CooldownFeature.class).setCanStart(false);
+        CooldownFeature cooldownFeature = arena.getFeature(CooldownFeature.class);
+        cooldownFeature.setCanStart(false);
+        ArenaTickFeature tickFeature = arena.getFeature(ArenaTickFeature.class);
+        tickFeature.pause();
+        if (cooldownFeature.canStart()) {
+            // The game is started while pausing
+            tickFeature.resume();
+        }
     }
 
     @Override
@@ -44,7 +44,7 @@ public class InGameState implements GameState, ColoredDisplayName {
 
     @Override
     public void start(Arena arena) {
-        String startMessage = arena.getFeature(VariableFeature.class).replace(gameLogic.getGameMessageConfig().getStartBroadcast());
+        String startMessage = arena.getFeature(VariableFeature.class).getTemplate(gameLogic.getGameMessageConfig().getStartBroadcast()).render();
         Bukkit.getOnlinePlayers().forEach(player -> MessageUtils.sendMessage(player, startMessage));
         arena.getFeature(ArenaLogicFeature.class).getArenaLogic().onInGameStart();
         arena.getFeature(CooldownFeature.class).start(this);
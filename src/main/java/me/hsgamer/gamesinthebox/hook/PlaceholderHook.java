@@ -18,18 +18,34 @@ package me.hsgamer.gamesinthebox.hook;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import me.hsgamer.gamesinthebox.GamesInTheBox;
 import me.hsgamer.gamesinthebox.planner.feature.ReplacementFeature;
+import me.hsgamer.gamesinthebox.util.BlockHandlerUtil;
 import me.hsgamer.minigamecore.base.Arena;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * The hook for PlaceholderAPI
+ * The hook for PlaceholderAPI.
+ * The resolved values are cached for the time set in {@link me.hsgamer.gamesinthebox.config.MainConfig#getPlaceholderCacheTime()}.
+ * The values are keyed by the query for the queries that do not depend on the player,
+ * and by the player and the query for the ones that do (see {@link ReplacementFeature#isPlayerScoped(String)}).
+ * The queries that depend on the player are only marked as such in the shared cache, and are never cached without a player.
+ * The plugin-wide values "blocks_per_tick" and "average_tick_time" are resolved when there is no planner with that name.
  */
 public class PlaceholderHook extends PlaceholderExpansion {
+    private static final int CLEANUP_INTERVAL = 1024;
     private final GamesInTheBox plugin;
+    private final Map<String, CachedValue> cache = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<String, CachedValue>> playerCache = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
 
     public PlaceholderHook(@NotNull GamesInTheBox plugin) {
         this.plugin = plugin;
@@ -60,19 +76,113 @@ public class PlaceholderHook extends PlaceholderExpansion {
         boolean result = super.register();
         if (result) {
             plugin.addDisableFunction(this::unregister);
+            plugin.addDisableFunction(cache::clear);
+            plugin.addDisableFunction(playerCache::clear);
         }
         return result;
     }
 
+    /**
+     * Get the amount of requests that were resolved from the cache
+     *
+     * @return the amount of hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Get the amount of requests that were not in the cache
+     *
+     * @return the amount of misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private long getCacheTimeNanos() {
+        long cacheTime = plugin.getMainConfig().getPlaceholderCacheTime();
+        if (cacheTime < 0) {
+            cacheTime = plugin.getMainConfig().getPlannerInterval() * 50L;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(cacheTime);
+    }
+
     @Override
     public String onRequest(OfflinePlayer player, String params) {
+        UUID uuid = player != null ? player.getUniqueId() : null;
+        long cacheTime = getCacheTimeNanos();
+        if (cacheTime <= 0) {
+            return resolve(params, uuid);
+        }
+
+        long now = System.nanoTime();
+        CachedValue sharedValue = cache.get(params);
+        boolean playerScoped;
+        if (sharedValue != null && sharedValue.isValid(now)) {
+            if (!sharedValue.playerScoped) {
+                hitCount.incrementAndGet();
+                return sharedValue.value;
+            }
+            playerScoped = true;
+        } else {
+            playerScoped = isPlayerScoped(params);
+            if (playerScoped) {
+                cache.put(params, new CachedValue(null, now + cacheTime, true));
+            }
+        }
+
+        if (!playerScoped) {
+            onMiss(now);
+            String value = resolve(params, null);
+            cache.put(params, new CachedValue(value, now + cacheTime, false));
+            return value;
+        }
+        if (uuid == null) {
+            onMiss(now);
+            return resolve(params, null);
+        }
+        Map<String, CachedValue> playerValues = playerCache.computeIfAbsent(uuid, key -> new ConcurrentHashMap<>());
+        CachedValue playerValue = playerValues.get(params);
+        if (playerValue != null && playerValue.isValid(now)) {
+            hitCount.incrementAndGet();
+            return playerValue.value;
+        }
+        onMiss(now);
+        String value = resolve(params, uuid);
+        playerValues.put(params, new CachedValue(value, now + cacheTime, false));
+        return value;
+    }
+
+    private void onMiss(long now) {
+        if (missCount.incrementAndGet() % CLEANUP_INTERVAL == 0) {
+            cache.values().removeIf(cachedValue -> !cachedValue.isValid(now));
+            playerCache.values().removeIf(playerValues -> {
+                playerValues.values().removeIf(cachedValue -> !cachedValue.isValid(now));
+                return playerValues.isEmpty();
+            });
+        }
+    }
+
+    private boolean isPlayerScoped(String params) {
+        String[] split = params.split(":", 2);
+        if (split.length < 2) {
+            return false;
+        }
+        return plugin.getPlannerManager().getArenaByName(split[0])
+                .map(planner -> planner.getFeature(ReplacementFeature.class))
+                .map(feature -> feature.isPlayerScoped(split[1]))
+                .orElse(false);
+    }
+
+    private String resolve(String params, UUID uuid) {
         String[] split = params.split(":", 2);
         if (split.length == 0) {
             return null;
         }
         Optional<Arena> optionalPlanner = plugin.getPlannerManager().getArenaByName(split[0]);
         if (!optionalPlanner.isPresent()) {
-            return null;
+            return split.length == 1 ? resolveGlobal(split[0]) : null;
         }
         Arena planner = optionalPlanner.get();
 
@@ -86,6 +196,33 @@ public class PlaceholderHook extends PlaceholderExpansion {
             return null;
         }
 
-        return feature.tryReplace(query, player != null ? player.getUniqueId() : null);
+        return feature.tryReplace(query, uuid);
+    }
+
+    private String resolveGlobal(String query) {
+        switch (query.toLowerCase(Locale.ROOT)) {
+            case "blocks_per_tick":
+                return Integer.toString(BlockHandlerUtil.getEffectiveBlocksPerTick());
+            case "average_tick_time":
+                return String.format(Locale.ROOT, "%.2f", BlockHandlerUtil.getAverageTickTime());
+            default:
+                return null;
+        }
+    }
+
+    private static final class CachedValue {
+        private final String value;
+        private final long expireTime;
+        private final boolean playerScoped;
+
+        private CachedValue(String value, long expireTime, boolean playerScoped) {
+            this.value = value;
+            this.expireTime = expireTime;
+            this.playerScoped = playerScoped;
+        }
+
+        private boolean isValid(long now) {
+            return now - expireTime < 0;
+        }
     }
 }
@@ -49,6 +49,11 @@ public interface GamePicker extends StringReplacer {
         public boolean canPick() {
             return false;
         }
+
+        @Override
+        public long getNextPickTime() {
+            return Long.MAX_VALUE;
+        }
     };
 
     /**
@@ -81,4 +86,15 @@ public interface GamePicker extends StringReplacer {
     default boolean forcePick() {
         return false;
     }
+
+    /**
+     * Get the next time the game picker can pick.
+     * The time is based on {@link me.hsgamer.gamesinthebox.util.ClockUtil#currentMillis()}.
+     * This is used to let the idle planner sleep until the game picker is ready.
+     *
+     * @return the next pick time in milliseconds, {@link Long#MAX_VALUE} if it will never pick by itself, or a negative number if it is unknown and should be checked on every tick
+     */
+    default long getNextPickTime() {
+        return -1L;
+    }
 }
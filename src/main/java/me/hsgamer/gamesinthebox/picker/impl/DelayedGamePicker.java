@@ -19,6 +19,7 @@ import me.hsgamer.gamesinthebox.game.GameArena;
 import me.hsgamer.gamesinthebox.picker.GamePicker;
 import me.hsgamer.gamesinthebox.planner.Planner;
 import me.hsgamer.gamesinthebox.planner.feature.PlannerConfigFeature;
+import me.hsgamer.gamesinthebox.util.ClockUtil;
 import me.hsgamer.gamesinthebox.util.TimeUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -55,7 +56,7 @@ public abstract class DelayedGamePicker implements GamePicker {
     }
 
     private void updateNextPickTime() {
-        updateNextPickTime(System.currentTimeMillis());
+        updateNextPickTime(ClockUtil.currentMillis());
     }
 
     /**
@@ -74,7 +75,7 @@ public abstract class DelayedGamePicker implements GamePicker {
 
     @Override
     public boolean canPick() {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = ClockUtil.currentMillis();
         if (isPicked) {
             isPicked = false;
             updateNextPickTime(currentTime);
@@ -87,15 +88,20 @@ public abstract class DelayedGamePicker implements GamePicker {
         if (isPicked) {
             return false;
         } else {
-            nextPickTime = System.currentTimeMillis();
+            nextPickTime = ClockUtil.currentMillis();
             return true;
         }
     }
 
+    @Override
+    public long getNextPickTime() {
+        return isPicked ? -1L : nextPickTime;
+    }
+
     @Override
     public String replace(@NotNull String input) {
         if (input.equalsIgnoreCase("time_left")) {
-            return TimeUtil.formatStandardTime(Math.max(0, nextPickTime - System.currentTimeMillis()));
+            return TimeUtil.formatStandardTime(Math.max(0, nextPickTime - ClockUtil.currentMillis()));
         }
         return null;
     }
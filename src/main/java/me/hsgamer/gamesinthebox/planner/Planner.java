@@ -17,10 +17,12 @@ package me.hsgamer.gamesinthebox.planner;
 
 import me.hsgamer.gamesinthebox.game.Game;
 import me.hsgamer.gamesinthebox.game.GameArena;
+import me.hsgamer.gamesinthebox.game.feature.ArenaTickFeature;
 import me.hsgamer.gamesinthebox.manager.PlannerManager;
 import me.hsgamer.gamesinthebox.planner.feature.*;
 import me.hsgamer.gamesinthebox.planner.state.IdlingState;
 import me.hsgamer.gamesinthebox.util.GameUtil;
+import me.hsgamer.gamesinthebox.util.QueryCache;
 import me.hsgamer.hscore.bukkit.utils.ColorUtils;
 import me.hsgamer.hscore.common.StringReplacer;
 import me.hsgamer.minigamecore.base.Feature;
@@ -43,13 +45,18 @@ import java.util.Optional;
  * </ul>
  */
 public class Planner extends HSCoreBukkitArena implements StringReplacer {
+    private static final QueryCache<Query> QUERY_CACHE = new QueryCache<>(Query::parse);
+    private ArenaTickFeature tickFeature;
+
     public Planner(@NotNull String name, @NotNull PlannerManager arenaManager) {
         super(name, arenaManager);
     }
 
     @Override
     protected List<Feature> loadFeatures() {
+        tickFeature = new ArenaTickFeature(this, super::run);
         return Arrays.asList(
+                tickFeature,
                 new GameRunnerFeature(),
                 new GamePickerFeature(this),
                 new ReplacementFeature(this),
@@ -64,26 +71,36 @@ public class Planner extends HSCoreBukkitArena implements StringReplacer {
         setNextState(IdlingState.class);
     }
 
+    @Override
+    public void run() {
+        ArenaTickFeature currentTickFeature = tickFeature;
+        if (currentTickFeature == null) {
+            super.run();
+        } else {
+            currentTickFeature.onSchedulerTick();
+        }
+    }
+
     @Override
     public String replace(@NotNull String input) {
-        switch (input.toLowerCase()) {
-            case "name":
+        switch (QUERY_CACHE.get(input)) {
+            case NAME:
                 return getName();
-            case "game_name":
+            case GAME_NAME:
                 return Optional.ofNullable(getFeature(GameRunnerFeature.class))
                         .map(GameRunnerFeature::getCurrentGameArena)
                         .map(GameArena::getGame)
                         .map(Game::getDisplayName)
                         .map(ColorUtils::colorize)
                         .orElse("");
-            case "game_local_name":
+            case GAME_LOCAL_NAME:
                 return Optional.ofNullable(getFeature(GameRunnerFeature.class))
                         .map(GameRunnerFeature::getCurrentGameArena)
                         .map(GameArena::getLocalName)
                         .orElse("");
-            case "state":
+            case STATE:
                 return GameUtil.getState(this);
-            case "game_state":
+            case GAME_STATE:
                 return Optional.ofNullable(getFeature(GameRunnerFeature.class))
                         .map(GameRunnerFeature::getCurrentGameArena)
                         .map(GameUtil::getState)
@@ -107,4 +124,30 @@ public class Planner extends HSCoreBukkitArena implements StringReplacer {
     public boolean isAsync() {
         return getFeature(PluginFeature.class).getPlugin().getMainConfig().isPlannerAsync();
     }
+
+    private enum Query {
+        NAME,
+        GAME_NAME,
+        GAME_LOCAL_NAME,
+        STATE,
+        GAME_STATE,
+        UNKNOWN;
+
+        private static Query parse(String input) {
+            switch (input.toLowerCase()) {
+                case "name":
+                    return NAME;
+                case "game_name":
+                    return GAME_NAME;
+                case "game_local_name":
+                    return GAME_LOCAL_NAME;
+                case "state":
+                    return STATE;
+                case "game_state":
+                    return GAME_STATE;
+                default:
+                    return UNKNOWN;
+            }
+        }
+    }
 }
@@ -17,14 +17,18 @@ package me.hsgamer.gamesinthebox.planner.feature;
 
 import me.hsgamer.gamesinthebox.GamesInTheBox;
 import me.hsgamer.gamesinthebox.game.GameArena;
+import me.hsgamer.gamesinthebox.game.feature.ArenaTickFeature;
 import me.hsgamer.gamesinthebox.manager.GameManager;
 import me.hsgamer.gamesinthebox.picker.GamePicker;
 import me.hsgamer.gamesinthebox.planner.Planner;
+import me.hsgamer.gamesinthebox.util.ClockUtil;
+import me.hsgamer.gamesinthebox.util.TimerWheel;
 import me.hsgamer.minigamecore.base.Feature;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 /**
@@ -45,7 +49,11 @@ public class GamePickerFeature implements Feature {
     private final Planner planner;
     private final Map<String, GameArena> gameArenaMap = new HashMap<>();
     private GamePicker gamePicker = GamePicker.EMPTY;
-    private GameArena forceNextGame;
+    private volatile GameArena forceNextGame;
+    private static final long MAX_WAKE_CHECK_TICKS = 20L;
+    private final AtomicLong wakeGeneration = new AtomicLong();
+    private volatile long sleepGeneration = -1;
+    private volatile TimerWheel.Handle wakeHandle;
 
     /**
      * Create a new {@link GamePickerFeature}
@@ -120,11 +128,121 @@ public class GamePickerFeature implements Feature {
     public boolean setNextGame(@NotNull String name) {
         if (gameArenaMap.containsKey(name)) {
             forceNextGame = gameArenaMap.get(name);
+            wakeUp();
             return true;
         }
         return false;
     }
 
+    /**
+     * Force the {@link GamePicker} to pick and wake up the planner
+     *
+     * @return true if the {@link GamePicker} can force pick
+     */
+    public boolean forcePick() {
+        if (gamePicker.forcePick()) {
+            wakeUp();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        wakeUp();
+    }
+
+    /**
+     * Check if the planner is sleeping.
+     * This is a cheap check that can be called on every tick of the planner while it's idling, as it does not read the clock.
+     *
+     * @return true if the planner is sleeping and the tick should be skipped
+     */
+    public boolean tickSleep() {
+        return isSleeping();
+    }
+
+    /**
+     * Let the planner sleep until the next pick time of the {@link GamePicker}.
+     * The updates of the planner are paused, and a one-shot wake is scheduled on the {@link TimerWheel} for the next pick time.
+     * The planner will be woken up earlier by {@link #setNextGame(String)}, {@link #forcePick()} or {@link #wakeUp()}.
+     */
+    public void sleepUntilNextPick() {
+        GamesInTheBox plugin = planner.getFeature(PluginFeature.class).getPlugin();
+        if (!plugin.getMainConfig().isPlannerSleepWhenIdle()) {
+            return;
+        }
+        // Take the generation before reading the picker, so a wake in between cancels this sleep
+        long generation = wakeGeneration.get();
+        long nextPickTime = gamePicker.getNextPickTime();
+        if (nextPickTime < 0 || forceNextGame != null) {
+            return;
+        }
+        if (nextPickTime != Long.MAX_VALUE && nextPickTime <= ClockUtil.currentMillis()) {
+            return;
+        }
+        sleepGeneration = generation;
+        ArenaTickFeature tickFeature = planner.getFeature(ArenaTickFeature.class);
+        tickFeature.pause();
+        if (wakeGeneration.get() != generation) {
+            tickFeature.resume();
+            return;
+        }
+        if (nextPickTime != Long.MAX_VALUE) {
+            scheduleWake(plugin, generation, nextPickTime);
+        }
+    }
+
+    private void scheduleWake(GamesInTheBox plugin, long generation, long wakeTime) {
+        long remaining = wakeTime - ClockUtil.currentMillis();
+        if (remaining <= 0) {
+            wakeUp(generation);
+            return;
+        }
+        // Check the clock again halfway, so the wake is not late when the ticks are slower than 50 milliseconds
+        long delay = Math.max(1L, Math.min(remaining / 100L, MAX_WAKE_CHECK_TICKS));
+        wakeHandle = plugin.getTimerWheel().scheduleOnce("wake:" + planner.getName(), () -> {
+            if (wakeGeneration.get() == generation) {
+                scheduleWake(plugin, generation, wakeTime);
+            }
+        }, delay);
+    }
+
+    private void wakeUp(long generation) {
+        if (wakeGeneration.compareAndSet(generation, generation + 1)) {
+            resume();
+        }
+    }
+
+    /**
+     * Wake up the planner from the idle sleep
+     */
+    public void wakeUp() {
+        wakeGeneration.incrementAndGet();
+        resume();
+    }
+
+    private void resume() {
+        TimerWheel.Handle handle = wakeHandle;
+        wakeHandle = null;
+        if (handle != null) {
+            handle.cancel();
+        }
+        ArenaTickFeature tickFeature = planner.getFeature(ArenaTickFeature.class);
+        if (tickFeature != null) {
+            tickFeature.resume();
+        }
+    }
+
+    /**
+     * Check if the planner is sleeping
+     *
+     * @return true if it is
+     */
+    public boolean isSleeping() {
+        return sleepGeneration == wakeGeneration.get();
+    }
+
     /**
      * Get the names of the game arenas
      *
@@ -15,6 +15,7 @@
 */
 package me.hsgamer.gamesinthebox.planner.feature;
 
+import me.hsgamer.gamesinthebox.game.GameArena;
 import me.hsgamer.gamesinthebox.planner.Planner;
 import me.hsgamer.hscore.common.StringReplacer;
 import me.hsgamer.minigamecore.base.Feature;
@@ -42,31 +43,63 @@ public class ReplacementFeature implements Feature, StringReplacer {
     }
 
     private String query(String query, BiFunction<StringReplacer, String, String> function) {
-        String name = null;
-        StringReplacer replacer = null;
-
-        String lowerCaseQuery = query.toLowerCase();
-        if (lowerCaseQuery.startsWith("game_")) {
-            name = query.substring(5);
-            replacer = planner.getFeature(GameRunnerFeature.class).getCurrentGameArena();
-        } else if (lowerCaseQuery.startsWith("picker_")) {
-            name = query.substring(7);
-            replacer = planner.getFeature(GamePickerFeature.class).getGamePicker();
-        } else if (lowerCaseQuery.startsWith("planner_")) {
-            name = query.substring(8);
-            replacer = planner;
-        }
+        Target target = Target.find(query);
 
-        if (name == null) {
+        String name;
+        StringReplacer replacer;
+        if (target == null) {
             name = "";
-        }
-        if (replacer == null) {
             replacer = StringReplacer.DUMMY;
+        } else {
+            name = query.substring(target.prefix.length());
+            replacer = getReplacer(target);
         }
 
         return function.apply(replacer, name);
     }
 
+    /**
+     * Get the current {@link StringReplacer} of the target
+     *
+     * @param target the target
+     * @return the replacer, or {@link StringReplacer#DUMMY} if there is no replacer
+     */
+    @NotNull
+    public StringReplacer getReplacer(@NotNull Target target) {
+        StringReplacer replacer;
+        switch (target) {
+            case GAME:
+                replacer = planner.getFeature(GameRunnerFeature.class).getCurrentGameArena();
+                break;
+            case PICKER:
+                replacer = planner.getFeature(GamePickerFeature.class).getGamePicker();
+                break;
+            case PLANNER:
+                replacer = planner;
+                break;
+            default:
+                replacer = null;
+                break;
+        }
+        return replacer == null ? StringReplacer.DUMMY : replacer;
+    }
+
+    /**
+     * Check if the replacement query depends on the player.
+     * Only the queries of the current {@link me.hsgamer.gamesinthebox.game.GameArena} can depend on the player.
+     *
+     * @param query the query
+     * @return true if the query depends on the player
+     */
+    public boolean isPlayerScoped(@NotNull String query) {
+        Target target = Target.find(query);
+        if (target != Target.GAME) {
+            return false;
+        }
+        GameArena gameArena = planner.getFeature(GameRunnerFeature.class).getCurrentGameArena();
+        return gameArena != null && gameArena.isPlayerScoped(query.substring(target.prefix.length()));
+    }
+
     @Override
     public @Nullable String replace(@NotNull String query) {
         return query(query, StringReplacer::replace);
@@ -76,4 +109,54 @@ public class ReplacementFeature implements Feature, StringReplacer {
     public @Nullable String replace(@NotNull String original, @NotNull UUID uuid) {
         return query(original, (replacementHandler, name) -> replacementHandler.replace(name, uuid));
     }
+
+    /**
+     * The target of the replacement query
+     */
+    public enum Target {
+        /**
+         * The current {@link me.hsgamer.gamesinthebox.game.GameArena}
+         */
+        GAME("game_"),
+        /**
+         * The {@link me.hsgamer.gamesinthebox.picker.GamePicker}
+         */
+        PICKER("picker_"),
+        /**
+         * The {@link Planner}
+         */
+        PLANNER("planner_");
+
+        private final String prefix;
+
+        Target(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Find the target of the query
+         *
+         * @param query the query
+         * @return the target, or null if the query has no known prefix
+         */
+        @Nullable
+        public static Target find(@NotNull String query) {
+            for (Target target : values()) {
+                if (query.regionMatches(true, 0, target.prefix, 0, target.prefix.length())) {
+                    return target;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Get the prefix of the target
+         *
+         * @return the prefix
+         */
+        @NotNull
+        public String getPrefix() {
+            return prefix;
+        }
+    }
 }
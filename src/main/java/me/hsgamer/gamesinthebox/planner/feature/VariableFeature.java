@@ -20,8 +20,13 @@ import me.hsgamer.hscore.common.StringReplacer;
 import me.hsgamer.hscore.variable.VariableManager;
 import me.hsgamer.minigamecore.base.Feature;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The {@link Feature} for replacing variables
@@ -29,6 +34,7 @@ import java.util.UUID;
 public class VariableFeature implements Feature, StringReplacer {
     private final Planner planner;
     private final VariableManager variableManager;
+    private final Map<String, Template> templateMap = new ConcurrentHashMap<>();
 
     /**
      * Create a new {@link VariableFeature}
@@ -46,6 +52,11 @@ public class VariableFeature implements Feature, StringReplacer {
         variableManager.register("", replacementFeature);
     }
 
+    @Override
+    public void clear() {
+        templateMap.clear();
+    }
+
     @Override
     public @NotNull String replace(@NotNull String original) {
         return variableManager.setVariables(original, null);
@@ -55,4 +66,135 @@ public class VariableFeature implements Feature, StringReplacer {
     public @NotNull String replace(@NotNull String original, @NotNull UUID uuid) {
         return variableManager.setVariables(original, uuid);
     }
+
+    /**
+     * Compile the string into a {@link Template}.
+     * The string is parsed once, so the {@link Template} can be rendered many times without parsing it again.
+     *
+     * @param original the string
+     * @return the template
+     */
+    @NotNull
+    public Template compile(@NotNull String original) {
+        return new Template(original);
+    }
+
+    /**
+     * Get the compiled {@link Template} of the string.
+     * The template is cached, so this should only be used for the strings from the configuration.
+     *
+     * @param original the string
+     * @return the template
+     */
+    @NotNull
+    public Template getTemplate(@NotNull String original) {
+        return templateMap.computeIfAbsent(original, this::compile);
+    }
+
+    /**
+     * The compiled string with the variables.
+     * The variables are in the format of {@code {[prefix]_[name]}}, which are resolved by {@link ReplacementFeature}.
+     * The unresolved variables are kept as they are.
+     * If a resolved value contains another variable, the rendered string is passed to the {@link VariableManager},
+     * so the nested variables are expanded as in {@link #replace(String)}.
+     */
+    public final class Template {
+        private final String original;
+        private final String[] literals;
+        private final ReplacementFeature.Target[] targets;
+        private final String[] names;
+        private final String[] variables;
+
+        private Template(String original) {
+            this.original = original;
+            List<String> literalList = new ArrayList<>();
+            List<ReplacementFeature.Target> targetList = new ArrayList<>();
+            List<String> nameList = new ArrayList<>();
+            List<String> variableList = new ArrayList<>();
+
+            int index = 0;
+            int literalStart = 0;
+            while (index < original.length()) {
+                int start = original.indexOf('{', index);
+                if (start < 0) {
+                    break;
+                }
+                int end = original.indexOf('}', start + 1);
+                if (end < 0) {
+                    break;
+                }
+                String query = original.substring(start + 1, end);
+                ReplacementFeature.Target target = ReplacementFeature.Target.find(query);
+                if (target == null) {
+                    index = start + 1;
+                    continue;
+                }
+                literalList.add(original.substring(literalStart, start));
+                targetList.add(target);
+                nameList.add(query.substring(target.getPrefix().length()));
+                variableList.add(original.substring(start, end + 1));
+                index = end + 1;
+                literalStart = index;
+            }
+            literalList.add(original.substring(literalStart));
+
+            this.literals = literalList.toArray(new String[0]);
+            this.targets = targetList.toArray(new ReplacementFeature.Target[0]);
+            this.names = nameList.toArray(new String[0]);
+            this.variables = variableList.toArray(new String[0]);
+        }
+
+        private String renderFor(@Nullable UUID uuid) {
+            if (targets.length == 0) {
+                return original;
+            }
+            ReplacementFeature replacementFeature = planner.getFeature(ReplacementFeature.class);
+            StringBuilder builder = new StringBuilder(original.length() + 16);
+            boolean nested = false;
+            for (int i = 0; i < targets.length; i++) {
+                builder.append(literals[i]);
+                StringReplacer replacer = replacementFeature.getReplacer(targets[i]);
+                String value = uuid == null ? replacer.replace(names[i]) : replacer.replace(names[i], uuid);
+                if (value == null) {
+                    builder.append(variables[i]);
+                } else {
+                    builder.append(value);
+                    nested |= value.indexOf('{') >= 0;
+                }
+            }
+            builder.append(literals[targets.length]);
+            return nested ? variableManager.setVariables(builder.toString(), uuid) : builder.toString();
+        }
+
+        /**
+         * Render the template
+         *
+         * @return the rendered string
+         */
+        @NotNull
+        public String render() {
+            return renderFor(null);
+        }
+
+        /**
+         * Render the template for the player
+         *
+         * @param uuid the unique id of the player
+         * @return the rendered string
+         */
+        @NotNull
+        public String render(@NotNull UUID uuid) {
+            return renderFor(uuid);
+        }
+
+        /**
+         * Get the original string
+         *
+         * @return the original string
+         */
+        @NotNull
+        public String getOriginal() {
+            return original;
+        }
+    }
 }
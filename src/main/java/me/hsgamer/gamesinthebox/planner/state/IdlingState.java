@@ -41,8 +41,14 @@ public class IdlingState implements GameState, ColoredDisplayName {
 
     @Override
     public void update(Arena arena) {
-        if (arena.getFeature(GamePickerFeature.class).canPick()) {
+        GamePickerFeature pickerFeature = arena.getFeature(GamePickerFeature.class);
+        if (pickerFeature.tickSleep()) {
+            return;
+        }
+        if (pickerFeature.canPick()) {
             arena.setNextState(ListeningState.class);
+        } else {
+            pickerFeature.sleepUntilNextPick();
         }
     }
 
@@ -0,0 +1,173 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * The immutable weighted sampler using the alias method (Vose).
+ * Each draw takes constant time and does not allocate.
+ *
+ * @param <T> the type of the element
+ */
+public final class AliasSampler<T> {
+    private final Object[] elements;
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    private AliasSampler(Object[] elements, double[] weights) {
+        int size = elements.length;
+        this.elements = elements;
+        this.probabilities = new double[size];
+        this.aliases = new int[size];
+
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        while (largeSize > 0) {
+            int index = large[--largeSize];
+            probabilities[index] = 1;
+            aliases[index] = index;
+        }
+        while (smallSize > 0) {
+            int index = small[--smallSize];
+            probabilities[index] = 1;
+            aliases[index] = index;
+        }
+    }
+
+    /**
+     * Create a sampler from the entries of the elements and their weights.
+     * The entries with non-positive weights are ignored.
+     *
+     * @param entries the entries
+     * @param <T>     the type of the element
+     * @return the sampler
+     * @throws IllegalArgumentException if there is no entry with a positive weight
+     */
+    @NotNull
+    public static <T> AliasSampler<T> of(@NotNull Stream<? extends Map.Entry<T, ? extends Number>> entries) {
+        List<Object> elementList = new ArrayList<>();
+        List<Double> weightList = new ArrayList<>();
+        entries.forEach(entry -> {
+            double weight = entry.getValue().doubleValue();
+            if (weight > 0) {
+                elementList.add(entry.getKey());
+                weightList.add(weight);
+            }
+        });
+        if (elementList.isEmpty()) {
+            throw new IllegalArgumentException("There is no entry with a positive weight");
+        }
+        double[] weights = new double[weightList.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = weightList.get(i);
+        }
+        return new AliasSampler<>(elementList.toArray(), weights);
+    }
+
+    /**
+     * Draw a random element
+     *
+     * @param random the random generator
+     * @return the element
+     */
+    @SuppressWarnings("unchecked")
+    public T sample(@NotNull Random random) {
+        int index = random.nextInt(elements.length);
+        if (random.nextDouble() >= probabilities[index]) {
+            index = aliases[index];
+        }
+        return (T) elements[index];
+    }
+
+    /**
+     * Draw a random element using {@link ThreadLocalRandom}
+     *
+     * @return the element
+     */
+    public T sample() {
+        return sample(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Fill the array with random elements
+     *
+     * @param out    the array
+     * @param offset the start index
+     * @param length the amount of elements to fill
+     */
+    public void fill(@NotNull T[] out, int offset, int length) {
+        Random random = ThreadLocalRandom.current();
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            out[i] = sample(random);
+        }
+    }
+
+    /**
+     * Fill the array with random elements
+     *
+     * @param out the array
+     */
+    public void fill(@NotNull T[] out) {
+        fill(out, 0, out.length);
+    }
+
+    /**
+     * Get the amount of the elements
+     *
+     * @return the amount
+     */
+    public int size() {
+        return elements.length;
+    }
+}
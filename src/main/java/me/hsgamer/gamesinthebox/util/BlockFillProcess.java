@@ -0,0 +1,280 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.util;
+
+import com.cryptomorin.xseries.XBlock;
+import com.cryptomorin.xseries.XMaterial;
+import com.lewdev.probabilitylib.ProbabilityCollection;
+import io.github.projectunified.blockutil.api.BlockData;
+import io.github.projectunified.blockutil.api.BlockHandler;
+import io.github.projectunified.blockutil.api.BlockProcess;
+import me.hsgamer.gamesinthebox.GamesInTheBox;
+import me.hsgamer.gamesinthebox.game.feature.BlockChangeTracker;
+import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
+import me.hsgamer.hscore.minecraft.block.box.BlockBox;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+
+/**
+ * The process that fills a {@link BlockBox} with the random materials.
+ * The box is split lazily in chunk order into bounded batches, one chunk column (or a slice of it) at a time,
+ * and the next batch is started after the previous one is done.
+ * Each batch of blocks-per-tick blocks is drawn from the {@link AliasSampler} and set on the region that owns the chunk,
+ * followed by the block delay.
+ * If the {@link BlockHandler} edits in bulk (FAWE), each batch is handed to the handler with the {@link ProbabilityCollection} instead.
+ */
+public final class BlockFillProcess {
+    private static final int BATCH_TICKS = 20;
+    private final BlockHandler bulkHandler;
+    private final World world;
+    private final AliasSampler<XMaterial> sampler;
+    private final ProbabilityCollection<BlockData> collection;
+    private final IntSupplier batchSizeSupplier;
+    private final long blockDelay;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int chunkCountX;
+    private final int chunkCount;
+    private final long total;
+    private final AtomicLong filled = new AtomicLong();
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final long startTime = System.nanoTime();
+    private volatile long endTime = -1;
+
+    private int chunkIndex = 0;
+    private int nextY;
+    private BlockBox currentBox;
+    private long currentVolume;
+    private BlockProcess currentProcess;
+    private boolean placing = false;
+    private long delayTicks = 0;
+    private TimerWheel.Handle handle;
+
+    BlockFillProcess(@Nullable BlockHandler bulkHandler, @NotNull World world, @NotNull BlockBox blockBox, @NotNull AliasSampler<XMaterial> sampler, @NotNull ProbabilityCollection<BlockData> collection, @NotNull IntSupplier batchSizeSupplier, long blockDelay) {
+        this.bulkHandler = bulkHandler;
+        this.world = world;
+        this.sampler = sampler;
+        this.collection = collection;
+        this.batchSizeSupplier = batchSizeSupplier;
+        this.blockDelay = Math.max(0L, blockDelay);
+        this.minX = blockBox.minX;
+        this.minY = blockBox.minY;
+        this.minZ = blockBox.minZ;
+        this.maxX = blockBox.maxX;
+        this.maxY = blockBox.maxY;
+        this.maxZ = blockBox.maxZ;
+        this.minChunkX = minX >> 4;
+        this.minChunkZ = minZ >> 4;
+        this.chunkCountX = (maxX >> 4) - minChunkX + 1;
+        this.chunkCount = chunkCountX * ((maxZ >> 4) - minChunkZ + 1);
+        this.total = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        this.nextY = minY;
+    }
+
+    synchronized void start() {
+        if (total <= 0) {
+            complete();
+            return;
+        }
+        handle = JavaPlugin.getPlugin(GamesInTheBox.class).getTimerWheel().schedule("block-fill", this::poll, 1L, 1L);
+    }
+
+    private synchronized void poll() {
+        if (future.isDone()) {
+            return;
+        }
+        if (cancelled.get()) {
+            if (currentProcess != null) {
+                currentProcess.cancel();
+            }
+            complete();
+            return;
+        }
+        if (currentProcess != null) {
+            if (!currentProcess.isDone()) {
+                return;
+            }
+            filled.addAndGet(currentVolume);
+            currentProcess = null;
+        }
+        if (placing) {
+            return;
+        }
+        if (delayTicks > 0) {
+            delayTicks--;
+            return;
+        }
+        if (!nextBatch()) {
+            complete();
+            return;
+        }
+        try {
+            BlockChangeTracker.notifyChanged(world, currentBox);
+            if (bulkHandler != null) {
+                currentProcess = bulkHandler.setRandomBlocks(world, currentBox, collection);
+            } else {
+                place(currentBox, (int) currentVolume);
+            }
+        } catch (Throwable throwable) {
+            JavaPlugin.getPlugin(GamesInTheBox.class).getLogger().log(Level.WARNING, "Error when filling the blocks", throwable);
+            fail(throwable);
+        }
+    }
+
+    private void place(BlockBox box, int volume) {
+        XMaterial[] materials = new XMaterial[volume];
+        sampler.fill(materials);
+        placing = true;
+        GamesInTheBox plugin = JavaPlugin.getPlugin(GamesInTheBox.class);
+        Scheduler.plugin(plugin).sync().runLocationTask(new Location(world, box.minX, box.minY, box.minZ), () -> {
+            int index = 0;
+            try {
+                for (int y = box.minY; y <= box.maxY && !cancelled.get(); y++) {
+                    for (int x = box.minX; x <= box.maxX; x++) {
+                        for (int z = box.minZ; z <= box.maxZ; z++) {
+                            XBlock.setType(world.getBlockAt(x, y, z), materials[index++], false);
+                        }
+                    }
+                }
+            } catch (Throwable throwable) {
+                plugin.getLogger().log(Level.WARNING, "Error when filling the blocks", throwable);
+                synchronized (this) {
+                    fail(throwable);
+                }
+            }
+            filled.addAndGet(index);
+            synchronized (this) {
+                placing = false;
+                delayTicks = blockDelay;
+            }
+        });
+    }
+
+    private boolean nextBatch() {
+        if (chunkIndex >= chunkCount) {
+            return false;
+        }
+        int chunkX = minChunkX + chunkIndex % chunkCountX;
+        int chunkZ = minChunkZ + chunkIndex / chunkCountX;
+        int startX = Math.max(minX, chunkX << 4);
+        int startZ = Math.max(minZ, chunkZ << 4);
+        int endX = Math.min(maxX, (chunkX << 4) + 15);
+        int endZ = Math.min(maxZ, (chunkZ << 4) + 15);
+        int columnArea = (endX - startX + 1) * (endZ - startZ + 1);
+        long batchSize = (long) Math.max(batchSizeSupplier.getAsInt(), 1) * (bulkHandler != null ? BATCH_TICKS : 1);
+        int layers = (int) Math.max(1L, Math.min(maxY - nextY + 1L, batchSize / columnArea));
+        int endY = nextY + layers - 1;
+        currentBox = new BlockBox(startX, nextY, startZ, endX, endY, endZ);
+        currentVolume = (long) columnArea * layers;
+        if (endY >= maxY) {
+            nextY = minY;
+            chunkIndex++;
+        } else {
+            nextY = endY + 1;
+        }
+        return true;
+    }
+
+    private void cancelHandle() {
+        if (handle != null) {
+            handle.cancel();
+        }
+    }
+
+    private void complete() {
+        cancelHandle();
+        endTime = System.nanoTime();
+        future.complete(null);
+    }
+
+    private void fail(Throwable throwable) {
+        cancelHandle();
+        endTime = System.nanoTime();
+        future.completeExceptionally(throwable);
+    }
+
+    /**
+     * Cancel the process. The current batch is also cancelled.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Check if the process is cancelled
+     *
+     * @return true if it is
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Get the future that is completed when the process is done or cancelled
+     *
+     * @return the future
+     */
+    @NotNull
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+    /**
+     * Get the total amount of blocks to fill
+     *
+     * @return the total amount
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the amount of filled blocks.
+     * The amount is updated when a batch is done.
+     *
+     * @return the amount of filled blocks
+     */
+    public long getFilled() {
+        return filled.get();
+    }
+
+    /**
+     * Get the average amount of filled blocks per second since the process started
+     *
+     * @return the blocks per second
+     */
+    public double getBlocksPerSecond() {
+        long end = endTime;
+        long elapsed = (end < 0 ? System.nanoTime() : end) - startTime;
+        return elapsed <= 0 ? 0 : filled.get() * 1_000_000_000D / elapsed;
+    }
+}
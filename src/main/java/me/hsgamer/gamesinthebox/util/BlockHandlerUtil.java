@@ -16,22 +16,48 @@
 package me.hsgamer.gamesinthebox.util;
 
 import com.cryptomorin.xseries.XMaterial;
+import com.lewdev.probabilitylib.ProbabilityCollection;
 import io.github.projectunified.blockutil.api.BlockData;
 import io.github.projectunified.blockutil.api.BlockHandler;
+import io.github.projectunified.blockutil.api.BlockProcess;
 import io.github.projectunified.blockutil.fawe.FaweBlockHandler;
 import io.github.projectunified.blockutil.folia.FoliaBlockHandler;
 import io.github.projectunified.blockutil.vanilla.VanillaBlockHandler;
 import me.hsgamer.gamesinthebox.GamesInTheBox;
 import me.hsgamer.gamesinthebox.config.MainConfig;
+import me.hsgamer.gamesinthebox.game.feature.BlockChangeTracker;
+import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
+import me.hsgamer.hscore.bukkit.scheduler.Task;
+import me.hsgamer.hscore.minecraft.block.box.BlockBox;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * The utility to get {@link BlockHandler}
  */
 public final class BlockHandlerUtil {
+    private static final int ADJUST_INTERVAL = 20;
+    private static final double TICK_TIME_SMOOTHING = 0.1;
+    private static final boolean FOLIA = isFolia();
     private static final BlockHandler blockHandler;
+    private static final AtomicInteger effectiveBlocksPerTick = new AtomicInteger();
+    private static final AtomicReference<Task> adaptiveTaskRef = new AtomicReference<>();
+    private static volatile Method averageTickTimeMethod = findAverageTickTimeMethod();
+    private static volatile double averageTickTime = 0;
+    private static long lastTickTime = -1;
+    private static long lastCpuTime = -1;
+    private static boolean measuringInterval = false;
+    private static int tickCount = 0;
 
     static {
         GamesInTheBox plugin = JavaPlugin.getPlugin(GamesInTheBox.class);
@@ -49,12 +75,33 @@ public final class BlockHandlerUtil {
                     .setBlocksPerTick(mainConfig.getBlockUtilBlocksPerTick())
                     .setBlockDelay(mainConfig.getBlockUtilBlockDelay());
         }
+        effectiveBlocksPerTick.set(mainConfig.getBlockUtilBlocksPerTick());
     }
 
     private BlockHandlerUtil() {
         // EMPTY
     }
 
+    private static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Method findAverageTickTimeMethod() {
+        if (FOLIA) {
+            return null;
+        }
+        try {
+            return Bukkit.getServer().getClass().getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     /**
      * Get the {@link BlockHandler}
      *
@@ -76,4 +123,203 @@ public final class BlockHandlerUtil {
         if (bukkitMaterial == null) return null;
         return new BlockData(bukkitMaterial, material.getData());
     }
+
+    /**
+     * Set the random blocks in the {@link BlockBox} through the {@link BlockHandler}
+     * and report the change to the registered {@link BlockChangeTracker}
+     *
+     * @param world      the world
+     * @param blockBox   the block box
+     * @param collection the collection of the {@link BlockData}
+     * @return the process of the {@link BlockHandler}
+     */
+    @NotNull
+    public static BlockProcess setRandomBlocks(@NotNull World world, @NotNull BlockBox blockBox, @NotNull ProbabilityCollection<BlockData> collection) {
+        BlockChangeTracker.notifyChanged(world, blockBox);
+        return blockHandler.setRandomBlocks(world, blockBox, collection);
+    }
+
+    /**
+     * Clear the blocks in the {@link BlockBox} through the {@link BlockHandler}
+     * and report the change to the registered {@link BlockChangeTracker}
+     *
+     * @param world    the world
+     * @param blockBox the block box
+     * @return the process of the {@link BlockHandler}
+     */
+    @NotNull
+    public static BlockProcess clearBlocks(@NotNull World world, @NotNull BlockBox blockBox) {
+        BlockChangeTracker.notifyChanged(world, blockBox);
+        return blockHandler.clearBlocks(world, blockBox);
+    }
+
+    /**
+     * Fill the {@link BlockBox} with the random materials.
+     * The box is split in chunk order into batches of {@link #getEffectiveBlocksPerTick()} blocks drawn from the sampler,
+     * each batch is set on the region that owns the chunk, and the next batch is started after the block delay.
+     * If the {@link BlockHandler} is FAWE, the batches of about one second of blocks are handed to the handler with the collection instead.
+     *
+     * @param world      the world
+     * @param blockBox   the block box
+     * @param sampler    the sampler of the materials
+     * @param collection the collection of the {@link BlockData} with the same weights as the sampler
+     * @return the process
+     * @see me.hsgamer.gamesinthebox.game.feature.MaterialProbabilityFeature#fill(World, BlockBox)
+     */
+    @NotNull
+    public static BlockFillProcess fill(@NotNull World world, @NotNull BlockBox blockBox, @NotNull AliasSampler<XMaterial> sampler, @NotNull ProbabilityCollection<BlockData> collection) {
+        BlockHandler bulkHandler = blockHandler instanceof FaweBlockHandler ? blockHandler : null;
+        long blockDelay = JavaPlugin.getPlugin(GamesInTheBox.class).getMainConfig().getBlockUtilBlockDelay();
+        BlockFillProcess process = new BlockFillProcess(bulkHandler, world, blockBox, sampler, collection, BlockHandlerUtil::getEffectiveBlocksPerTick, blockDelay);
+        process.start();
+        return process;
+    }
+
+    /**
+     * Start the adaptive mode if it is enabled in the config.
+     * The adaptive mode measures the time the server spends in each tick (MSPT)
+     * and adjusts the blocks-per-tick between the configured bounds:
+     * it is reduced when the average tick time is above the maximum, and slowly increased otherwise.
+     * The tick time is read from the server on Paper, or measured from the CPU time of the main thread.
+     * If neither is available, the interval between the ticks is used, which only rises above 50 milliseconds when the server is already behind.
+     * The adaptive mode is not supported on Folia, where each region has its own tick time, so the configured blocks-per-tick is used there.
+     *
+     * @param plugin the plugin
+     */
+    public static void startAdaptive(@NotNull GamesInTheBox plugin) {
+        stopAdaptive();
+        MainConfig mainConfig = plugin.getMainConfig();
+        if (!mainConfig.isBlockUtilAdaptiveEnabled() || !isAdaptiveSupported()) {
+            setEffectiveBlocksPerTick(mainConfig.getBlockUtilBlocksPerTick());
+            return;
+        }
+        lastTickTime = -1;
+        lastCpuTime = -1;
+        measuringInterval = false;
+        tickCount = 0;
+        averageTickTime = 0;
+        Task task = Scheduler.plugin(plugin).sync().runTaskTimer(() -> onTick(mainConfig), 1L, 1L);
+        adaptiveTaskRef.set(task);
+    }
+
+    /**
+     * Stop the adaptive mode
+     */
+    public static void stopAdaptive() {
+        TaskUtil.cancelSafe(adaptiveTaskRef.getAndSet(null));
+    }
+
+    /**
+     * Check if the adaptive mode is supported on the server.
+     * It is not supported on Folia, as the tick time of a region cannot be measured from the global region.
+     *
+     * @return true if it is
+     */
+    public static boolean isAdaptiveSupported() {
+        return !FOLIA;
+    }
+
+    /**
+     * Check if the adaptive mode is running
+     *
+     * @return true if it is
+     */
+    public static boolean isAdaptiveRunning() {
+        return adaptiveTaskRef.get() != null;
+    }
+
+    /**
+     * Get the current blocks-per-tick, which is adjusted by the adaptive mode if it is running
+     *
+     * @return the blocks-per-tick
+     */
+    public static int getEffectiveBlocksPerTick() {
+        return effectiveBlocksPerTick.get();
+    }
+
+    /**
+     * Get the average tick time measured by the adaptive mode
+     *
+     * @return the average tick time in milliseconds, or 0 if the adaptive mode is not running
+     */
+    public static double getAverageTickTime() {
+        return averageTickTime;
+    }
+
+    private static double getServerTickTime() {
+        Method method = averageTickTimeMethod;
+        if (method == null) {
+            return -1;
+        }
+        try {
+            return ((Number) method.invoke(Bukkit.getServer())).doubleValue();
+        } catch (Exception e) {
+            // Do not try again, and measure the tick time from now on
+            averageTickTimeMethod = null;
+            return -1;
+        }
+    }
+
+    private static double measureTickTime() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+            long cpuTime = threadMXBean.getCurrentThreadCpuTime();
+            if (cpuTime >= 0) {
+                measuringInterval = false;
+                long lastCpu = lastCpuTime;
+                lastCpuTime = cpuTime;
+                return lastCpu < 0 ? -1 : (cpuTime - lastCpu) / 1_000_000D;
+            }
+        }
+        measuringInterval = true;
+        long now = System.nanoTime();
+        long last = lastTickTime;
+        lastTickTime = now;
+        return last < 0 ? -1 : (now - last) / 1_000_000D;
+    }
+
+    private static void onTick(MainConfig mainConfig) {
+        double serverTickTime = getServerTickTime();
+        if (serverTickTime >= 0) {
+            averageTickTime = serverTickTime;
+        } else {
+            double tickTime = measureTickTime();
+            if (tickTime >= 0) {
+                double average = averageTickTime;
+                averageTickTime = average <= 0 ? tickTime : average + (tickTime - average) * TICK_TIME_SMOOTHING;
+            }
+        }
+
+        if (++tickCount < ADJUST_INTERVAL) {
+            return;
+        }
+        tickCount = 0;
+
+        int min = Math.max(1, mainConfig.getBlockUtilAdaptiveMinBlocksPerTick());
+        int max = Math.max(min, mainConfig.getBlockUtilAdaptiveMaxBlocksPerTick());
+        int current = effectiveBlocksPerTick.get();
+        int next;
+        double maxTickTime = mainConfig.getBlockUtilAdaptiveMaxTickTime();
+        if (measuringInterval) {
+            // The interval never goes below 50 milliseconds, so only react when the server is behind
+            maxTickTime = Math.max(maxTickTime, 51.0);
+        }
+        if (averageTickTime > maxTickTime) {
+            next = current * 3 / 4;
+        } else {
+            next = current + Math.max(1, (max - min) / 20);
+        }
+        setEffectiveBlocksPerTick(Math.max(min, Math.min(max, next)));
+    }
+
+    private static void setEffectiveBlocksPerTick(int blocksPerTick) {
+        if (effectiveBlocksPerTick.getAndSet(blocksPerTick) == blocksPerTick) {
+            return;
+        }
+        if (blockHandler instanceof VanillaBlockHandler) {
+            ((VanillaBlockHandler) blockHandler).setBlocksPerTick(blocksPerTick);
+        } else if (blockHandler instanceof FoliaBlockHandler) {
+            ((FoliaBlockHandler) blockHandler).setBlocksPerTick(blocksPerTick);
+        }
+    }
 }
@@ -0,0 +1,169 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.util;
+
+import me.hsgamer.gamesinthebox.GamesInTheBox;
+import me.hsgamer.gamesinthebox.config.MainConfig;
+import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
+import me.hsgamer.hscore.bukkit.scheduler.Task;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The utility for the monotonic clock shared by the timing-sensitive features.
+ * The clock is based on {@link System#nanoTime()}, so it does not jump when the wall clock is adjusted.
+ * If "clock.use-server-ticks" is enabled, the clock is driven by the server ticks instead, 50 milliseconds per tick.
+ */
+public final class ClockUtil {
+    private static final long NANOS_PER_TICK = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long ORIGIN = System.nanoTime();
+    private static volatile long serverTicks = 0;
+    private static volatile boolean useServerTicks = false;
+    private static volatile int maxCatchUpTicks = Integer.MAX_VALUE;
+    private static Task tickTask;
+
+    private ClockUtil() {
+        // EMPTY
+    }
+
+    /**
+     * Initialize the clock from the config
+     *
+     * @param plugin the plugin
+     */
+    public static void init(@NotNull GamesInTheBox plugin) {
+        clear();
+        MainConfig mainConfig = plugin.getMainConfig();
+        int maxCatchUp = mainConfig.getClockMaxCatchUpTicks();
+        maxCatchUpTicks = maxCatchUp <= 0 ? Integer.MAX_VALUE : maxCatchUp;
+        if (mainConfig.isClockUseServerTicks()) {
+            serverTicks = 0;
+            useServerTicks = true;
+            tickTask = Scheduler.plugin(plugin).sync().runTaskTimer(() -> serverTicks++, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stop the server tick source and reset the settings
+     */
+    public static void clear() {
+        TaskUtil.cancelSafe(tickTask);
+        tickTask = null;
+        useServerTicks = false;
+        maxCatchUpTicks = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Check if the clock is driven by the server ticks
+     *
+     * @return true if it is
+     */
+    public static boolean isUseServerTicks() {
+        return useServerTicks;
+    }
+
+    /**
+     * Get the current time of the clock.
+     * The value is only meaningful when compared to another value of this clock.
+     *
+     * @return the current time in nanoseconds
+     */
+    public static long currentNanos() {
+        return useServerTicks ? serverTicks * NANOS_PER_TICK : System.nanoTime() - ORIGIN;
+    }
+
+    /**
+     * Get the current time of the clock.
+     * The value is only meaningful when compared to another value of this clock.
+     *
+     * @return the current time in milliseconds
+     */
+    public static long currentMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(currentNanos());
+    }
+
+    /**
+     * Create a new accumulator with the max catch-up ticks from the config
+     *
+     * @param period the period of a tick
+     * @param unit   the unit of the period
+     * @return the accumulator
+     */
+    @NotNull
+    public static Accumulator newAccumulator(long period, @NotNull TimeUnit unit) {
+        return new Accumulator(unit.toNanos(period), maxCatchUpTicks);
+    }
+
+    /**
+     * The accumulator that counts the ticks passed on the clock.
+     * The remaining time that is not enough for a tick is carried to the next poll,
+     * and the ticks over the max catch-up ticks are dropped.
+     */
+    public static final class Accumulator {
+        private final long periodNanos;
+        private final int maxCatchUpTicks;
+        private long lastTime;
+
+        /**
+         * Create a new accumulator
+         *
+         * @param periodNanos     the period of a tick in nanoseconds
+         * @param maxCatchUpTicks the maximum amount of ticks returned by a poll
+         */
+        public Accumulator(long periodNanos, int maxCatchUpTicks) {
+            this.periodNanos = Math.max(periodNanos, 1);
+            this.maxCatchUpTicks = Math.max(maxCatchUpTicks, 1);
+            this.lastTime = currentNanos();
+        }
+
+        /**
+         * Get the ticks passed since the last poll
+         *
+         * @return the passed ticks
+         */
+        public synchronized int poll() {
+            long current = currentNanos();
+            long difference = current - lastTime;
+            if (difference < periodNanos) {
+                return 0;
+            }
+            long passed = difference / periodNanos;
+            if (passed > maxCatchUpTicks) {
+                lastTime = current - difference % periodNanos;
+                return maxCatchUpTicks;
+            }
+            lastTime += passed * periodNanos;
+            return (int) passed;
+        }
+
+        /**
+         * Reset the accumulator
+         */
+        public synchronized void reset() {
+            lastTime = currentNanos();
+        }
+
+        /**
+         * Get the period of a tick
+         *
+         * @return the period in nanoseconds
+         */
+        public long getPeriodNanos() {
+            return periodNanos;
+        }
+    }
+}
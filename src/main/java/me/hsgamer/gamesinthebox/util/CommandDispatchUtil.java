@@ -0,0 +1,185 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.util;
+
+import me.hsgamer.gamesinthebox.GamesInTheBox;
+import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * The utility to dispatch console commands in batches.
+ * The commands are queued and dispatched on the main thread (the global region on Folia),
+ * with at most {@link me.hsgamer.gamesinthebox.config.MainConfig#getRewardCommandsPerTick()} commands per tick.
+ */
+public final class CommandDispatchUtil {
+    private static final Queue<Batch> batchQueue = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private CommandDispatchUtil() {
+        // EMPTY
+    }
+
+    /**
+     * Queue the commands to dispatch
+     *
+     * @param commands the commands
+     * @return the batch of the commands
+     */
+    @NotNull
+    public static Batch dispatch(@NotNull List<@NotNull String> commands) {
+        Batch batch = new Batch();
+        queue(batch, new ArrayList<>(commands));
+        return batch;
+    }
+
+    /**
+     * Build the commands asynchronously and queue them to dispatch.
+     * The batch is returned right away, so the progress can be read while the commands are built and dispatched.
+     *
+     * @param commandSupplier the supplier of the commands, called on an asynchronous task
+     * @return the batch of the commands
+     */
+    @NotNull
+    public static Batch dispatchAsync(@NotNull Supplier<@NotNull List<@NotNull String>> commandSupplier) {
+        Batch batch = new Batch();
+        Scheduler.providingPlugin(CommandDispatchUtil.class).async().runTask(() -> {
+            List<String> commands;
+            try {
+                commands = new ArrayList<>(commandSupplier.get());
+            } catch (Throwable throwable) {
+                batch.commands = new ArrayList<>();
+                batch.future.completeExceptionally(throwable);
+                return;
+            }
+            queue(batch, commands);
+        });
+        return batch;
+    }
+
+    private static void queue(Batch batch, List<String> commands) {
+        batch.commands = commands;
+        if (commands.isEmpty()) {
+            batch.future.complete(null);
+            return;
+        }
+        batchQueue.add(batch);
+        schedule(false);
+    }
+
+    private static void schedule(boolean nextTick) {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        if (nextTick) {
+            Scheduler.providingPlugin(CommandDispatchUtil.class).sync().runTaskLater(CommandDispatchUtil::drain, 1L);
+        } else {
+            Scheduler.providingPlugin(CommandDispatchUtil.class).sync().runTask(CommandDispatchUtil::drain);
+        }
+    }
+
+    private static void drain() {
+        GamesInTheBox plugin = JavaPlugin.getPlugin(GamesInTheBox.class);
+        int budget = Math.max(plugin.getMainConfig().getRewardCommandsPerTick(), 1);
+        while (budget > 0) {
+            Batch batch = batchQueue.peek();
+            if (batch == null) {
+                break;
+            }
+            while (budget > 0 && batch.dispatched.get() < batch.commands.size()) {
+                String command = batch.commands.get(batch.dispatched.get());
+                try {
+                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command);
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.WARNING, e, () -> "Failed to dispatch the command: " + command);
+                }
+                batch.dispatched.incrementAndGet();
+                budget--;
+            }
+            if (batch.dispatched.get() >= batch.commands.size()) {
+                batchQueue.poll();
+                batch.future.complete(null);
+            }
+        }
+        // Keep the flag until the budget is spent, so the commands queued by the dispatched commands wait for the next tick
+        scheduled.set(false);
+        if (!batchQueue.isEmpty()) {
+            schedule(true);
+        }
+    }
+
+    /**
+     * The batch of the queued commands
+     */
+    public static final class Batch {
+        private final AtomicInteger dispatched = new AtomicInteger(0);
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile List<String> commands;
+
+        private Batch() {
+            // EMPTY
+        }
+
+        /**
+         * Check if the commands of the batch are still being built
+         *
+         * @return true if they are
+         */
+        public boolean isBuilding() {
+            return commands == null;
+        }
+
+        /**
+         * Get the total amount of commands in the batch
+         *
+         * @return the total amount, or 0 if the commands are still being built
+         */
+        public int getTotal() {
+            List<String> list = commands;
+            return list == null ? 0 : list.size();
+        }
+
+        /**
+         * Get the amount of dispatched commands
+         *
+         * @return the amount of dispatched commands
+         */
+        public int getDispatched() {
+            return dispatched.get();
+        }
+
+        /**
+         * Get the future that is completed when all the commands are dispatched
+         *
+         * @return the future
+         */
+        @NotNull
+        public CompletableFuture<Void> getFuture() {
+            return future;
+        }
+    }
+}
@@ -104,4 +104,50 @@ public final class LocationUtil {
         }
         return value;
     }
+
+    /**
+     * Pack the block coordinates into a single long.
+     * The x and z coordinates use 27 bits each and the y coordinate uses 10 bits.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return the packed coordinates
+     */
+    public static long getBlockKey(int x, int y, int z) {
+        return ((long) x & 0x7FFFFFF) | (((long) z & 0x7FFFFFF) << 27) | ((long) y << 54);
+    }
+
+    /**
+     * Get the x coordinate from the packed coordinates
+     *
+     * @param blockKey the packed coordinates
+     * @return the x coordinate
+     * @see #getBlockKey(int, int, int)
+     */
+    public static int getBlockKeyX(long blockKey) {
+        return (int) ((blockKey << 37) >> 37);
+    }
+
+    /**
+     * Get the y coordinate from the packed coordinates
+     *
+     * @param blockKey the packed coordinates
+     * @return the y coordinate
+     * @see #getBlockKey(int, int, int)
+     */
+    public static int getBlockKeyY(long blockKey) {
+        return (int) (blockKey >> 54);
+    }
+
+    /**
+     * Get the z coordinate from the packed coordinates
+     *
+     * @param blockKey the packed coordinates
+     * @return the z coordinate
+     * @see #getBlockKey(int, int, int)
+     */
+    public static int getBlockKeyZ(long blockKey) {
+        return (int) ((blockKey << 10) >> 37);
+    }
 }
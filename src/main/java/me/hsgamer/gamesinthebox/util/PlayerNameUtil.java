@@ -0,0 +1,192 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.util;
+
+import me.hsgamer.gamesinthebox.GamesInTheBox;
+import me.hsgamer.gamesinthebox.config.MainConfig;
+import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The utility to get the names of the players.
+ * The names are cached when the players join the server or when {@link #cacheIfAbsent(UUID)} is called,
+ * so the leaderboard does not have to look up the profiles of the offline players.
+ * The cache is bounded and evicts the least recently used names.
+ * The players that have no name are also remembered for a while, so they are not looked up on every call.
+ */
+public final class PlayerNameUtil {
+    private static volatile int maxSize = 2048;
+    private static volatile long missingCacheTime = TimeUnit.MINUTES.toNanos(1);
+    private static final Map<UUID, String> nameCache = Collections.synchronizedMap(new LinkedHashMap<UUID, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, String> eldest) {
+            return size() > maxSize;
+        }
+    });
+    private static final Map<UUID, Long> missingCache = Collections.synchronizedMap(new LinkedHashMap<UUID, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Long> eldest) {
+            return size() > maxSize;
+        }
+    });
+    private static final Set<UUID> pendingLookups = Collections.synchronizedSet(new HashSet<>());
+    private static final Listener listener = new Listener() {
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onJoin(PlayerJoinEvent event) {
+            cache(event.getPlayer());
+        }
+    };
+
+    private PlayerNameUtil() {
+        // EMPTY
+    }
+
+    /**
+     * Register the listener to cache the names of the joined players and load the cache settings from the config
+     *
+     * @param plugin the plugin
+     */
+    public static void init(@NotNull GamesInTheBox plugin) {
+        MainConfig mainConfig = plugin.getMainConfig();
+        maxSize = Math.max(1, mainConfig.getPlayerNameCacheSize());
+        missingCacheTime = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, mainConfig.getPlayerNameMissingCacheTime()));
+        Bukkit.getPluginManager().registerEvents(listener, plugin);
+        Bukkit.getOnlinePlayers().forEach(PlayerNameUtil::cache);
+    }
+
+    /**
+     * Unregister the listener and clear the cache
+     */
+    public static void clear() {
+        HandlerList.unregisterAll(listener);
+        nameCache.clear();
+        missingCache.clear();
+        pendingLookups.clear();
+    }
+
+    /**
+     * Cache the name of the player
+     *
+     * @param player the player
+     */
+    public static void cache(@NotNull Player player) {
+        nameCache.put(player.getUniqueId(), player.getName());
+        missingCache.remove(player.getUniqueId());
+    }
+
+    private static boolean isKnownMissing(UUID uuid) {
+        Long expireTime = missingCache.get(uuid);
+        if (expireTime == null) {
+            return false;
+        }
+        if (System.nanoTime() - expireTime < 0) {
+            return true;
+        }
+        missingCache.remove(uuid);
+        return false;
+    }
+
+    /**
+     * Cache the name of the player if it is not cached and the player is online
+     *
+     * @param uuid the unique id of the player
+     */
+    public static void cacheIfAbsent(@NotNull UUID uuid) {
+        if (nameCache.containsKey(uuid)) {
+            return;
+        }
+        Player player = Bukkit.getPlayer(uuid);
+        if (player != null) {
+            cache(player);
+        }
+    }
+
+    /**
+     * Get the cached name of the player.
+     * If the name is not cached, it will be looked up asynchronously for the next call,
+     * unless the player is known to have no name.
+     *
+     * @param uuid the unique id of the player
+     * @return the name, or null if it is not cached yet
+     */
+    @Nullable
+    public static String getCachedName(@NotNull UUID uuid) {
+        String name = nameCache.get(uuid);
+        if (name == null && !isKnownMissing(uuid)) {
+            prefetch(Collections.singletonList(uuid));
+        }
+        return name;
+    }
+
+    /**
+     * Get the name of the player.
+     * If the name is not cached, it will be looked up from {@link Bukkit#getOfflinePlayer(UUID)}, which may block.
+     * The players that have no name are remembered, so they are not looked up again until the missing cache time passes.
+     *
+     * @param uuid the unique id of the player
+     * @return the name, or null if the player has no name
+     */
+    @Nullable
+    public static String getName(@NotNull UUID uuid) {
+        String name = nameCache.get(uuid);
+        if (name == null && !isKnownMissing(uuid)) {
+            name = Bukkit.getOfflinePlayer(uuid).getName();
+            if (name != null) {
+                nameCache.put(uuid, name);
+            } else if (missingCacheTime > 0) {
+                missingCache.put(uuid, System.nanoTime() + missingCacheTime);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Look up the names of the players that are not cached in a single asynchronous task
+     *
+     * @param uuids the unique ids of the players
+     */
+    public static void prefetch(@NotNull Collection<@NotNull UUID> uuids) {
+        List<UUID> missing = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            if (!nameCache.containsKey(uuid) && !isKnownMissing(uuid) && pendingLookups.add(uuid)) {
+                missing.add(uuid);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Scheduler.providingPlugin(PlayerNameUtil.class).async().runTask(() -> {
+            for (UUID uuid : missing) {
+                try {
+                    getName(uuid);
+                } finally {
+                    pendingLookups.remove(uuid);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The bounded cache of the parsed queries.
+ * The query is parsed once and the parsed result is reused on the next requests.
+ * The cache is reset when it reaches the maximum size.
+ *
+ * @param <T> the type of the parsed query
+ */
+public final class QueryCache<T> {
+    private final Map<String, T> map = new ConcurrentHashMap<>();
+    private final Function<@NotNull String, @NotNull T> parser;
+    private final int maxSize;
+
+    /**
+     * Create a new cache
+     *
+     * @param parser  the parser of the query
+     * @param maxSize the maximum amount of queries to cache
+     */
+    public QueryCache(@NotNull Function<@NotNull String, @NotNull T> parser, int maxSize) {
+        this.parser = parser;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create a new cache
+     *
+     * @param parser the parser of the query
+     */
+    public QueryCache(@NotNull Function<@NotNull String, @NotNull T> parser) {
+        this(parser, 1024);
+    }
+
+    /**
+     * Get the parsed query
+     *
+     * @param query the query
+     * @return the parsed query
+     */
+    @NotNull
+    public T get(@NotNull String query) {
+        T value = map.get(query);
+        if (value == null) {
+            if (map.size() >= maxSize) {
+                map.clear();
+            }
+            value = parser.apply(query);
+            map.put(query, value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,356 @@
+/*
+   Copyright 2023-2023 Huynh Tien
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package me.hsgamer.gamesinthebox.util;
+
+import me.hsgamer.hscore.bukkit.scheduler.Scheduler;
+import me.hsgamer.hscore.bukkit.scheduler.Task;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * The hierarchical timer wheel that multiplexes the repeating asynchronous tasks of the plugin on a single scheduler task.
+ * The scheduler task only finds the tasks due in the tick and hands them, in the order they are scheduled,
+ * to a small pool of worker threads, and the CPU time of each task is recorded.
+ * <p>
+ * A task never runs twice at the same time: if it is still running when it is due again, that run is skipped,
+ * so a slow task only delays itself and the other tasks keep running on the other workers.
+ * A task should still do a bounded amount of work per run, as it holds a worker while running.
+ * A run that takes longer than {@link #SLOW_RUN_NANOS} is counted and reported in the log, at most once a minute per task.
+ */
+public final class TimerWheel {
+    /**
+     * The time of a run, in nanoseconds, that is reported as slow
+     */
+    public static final long SLOW_RUN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SLOW_RUN_REPORT_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final int WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    private final Plugin plugin;
+    private final List<Entry>[][] wheels;
+    private final Queue<Entry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final List<Handle> handles = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Entry> dueEntries = new ArrayList<>();
+    private long currentTick = 0;
+    private Task task;
+    private volatile ExecutorService executor;
+
+    /**
+     * Create a new timer wheel
+     *
+     * @param plugin the plugin
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+        this.wheels = new List[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheels[level][slot] = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Start the timer wheel
+     */
+    public void start() {
+        if (task == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(WORKERS, runnable -> {
+                Thread thread = new Thread(runnable, plugin.getName() + " Timer Wheel #" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            task = Scheduler.plugin(plugin).async().runTaskTimer(this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stop the timer wheel and cancel all the tasks
+     */
+    public void stop() {
+        TaskUtil.cancelSafe(task);
+        task = null;
+        handles.forEach(Handle::cancel);
+        handles.clear();
+        pendingEntries.clear();
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Schedule a repeating task
+     *
+     * @param name     the name of the task, used in the statistics
+     * @param runnable the task
+     * @param delay    the delay before the first run, in ticks
+     * @param period   the period between the runs, in ticks
+     * @return the handle of the task
+     */
+    @NotNull
+    public Handle schedule(@NotNull String name, @NotNull Runnable runnable, long delay, long period) {
+        Handle handle = new Handle(this, name, runnable, Math.max(period, 1L));
+        handles.add(handle);
+        pendingEntries.add(new Entry(handle, Math.max(delay, 1L), sequence.incrementAndGet()));
+        return handle;
+    }
+
+    /**
+     * Schedule a task to run once
+     *
+     * @param name     the name of the task, used in the statistics
+     * @param runnable the task
+     * @param delay    the delay before the run, in ticks
+     * @return the handle of the task
+     */
+    @NotNull
+    public Handle scheduleOnce(@NotNull String name, @NotNull Runnable runnable, long delay) {
+        Handle handle = new Handle(this, name, runnable, 0L);
+        handles.add(handle);
+        pendingEntries.add(new Entry(handle, Math.max(delay, 1L), sequence.incrementAndGet()));
+        return handle;
+    }
+
+    /**
+     * Get the handles of the scheduled tasks
+     *
+     * @return the handles
+     */
+    @NotNull
+    public List<Handle> getHandles() {
+        return Collections.unmodifiableList(handles);
+    }
+
+    private synchronized void tick() {
+        ExecutorService currentExecutor = executor;
+        if (currentExecutor == null) {
+            return;
+        }
+        currentTick++;
+        while (true) {
+            Entry entry = pendingEntries.poll();
+            if (entry == null) {
+                break;
+            }
+            entry.deadline = currentTick + entry.deadline - 1;
+            insert(entry);
+        }
+
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                List<Entry> slot = wheels[level][(int) ((currentTick >> (WHEEL_BITS * level)) & WHEEL_MASK)];
+                List<Entry> cascaded = new ArrayList<>(slot);
+                slot.clear();
+                cascaded.forEach(this::insert);
+            }
+        }
+
+        List<Entry> slot = wheels[0][(int) (currentTick & WHEEL_MASK)];
+        Iterator<Entry> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.handle.isCancelled()) {
+                iterator.remove();
+            } else if (entry.deadline <= currentTick) {
+                iterator.remove();
+                dueEntries.add(entry);
+            }
+        }
+        dueEntries.sort(Comparator.comparingLong(entry -> entry.sequence));
+        for (Entry entry : dueEntries) {
+            Handle handle = entry.handle;
+            if (handle.running.compareAndSet(false, true)) {
+                try {
+                    currentExecutor.execute(() -> {
+                        try {
+                            handle.run(plugin);
+                        } finally {
+                            handle.running.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    handle.running.set(false);
+                }
+            } else {
+                handle.skippedRunCount.incrementAndGet();
+            }
+            if (handle.period <= 0) {
+                handle.cancel();
+            } else if (!handle.isCancelled()) {
+                entry.deadline = currentTick + entry.handle.period;
+                insert(entry);
+            }
+        }
+        dueEntries.clear();
+    }
+
+    private void insert(Entry entry) {
+        if (entry.deadline < currentTick) {
+            entry.deadline = currentTick;
+        }
+        long delay = entry.deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        wheels[level][(int) ((entry.deadline >> (WHEEL_BITS * level)) & WHEEL_MASK)].add(entry);
+    }
+
+    private static final class Entry {
+        private final Handle handle;
+        private final long sequence;
+        private long deadline;
+
+        private Entry(Handle handle, long deadline, long sequence) {
+            this.handle = handle;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * The handle of a task in the {@link TimerWheel}
+     */
+    public static final class Handle {
+        private final TimerWheel timerWheel;
+        private final String name;
+        private final Runnable runnable;
+        private final long period;
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        private final AtomicLong skippedRunCount = new AtomicLong();
+        private final AtomicLong runCount = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong slowRunCount = new AtomicLong();
+        private volatile long lastSlowRunReport = 0;
+
+        private Handle(TimerWheel timerWheel, String name, Runnable runnable, long period) {
+            this.timerWheel = timerWheel;
+            this.name = name;
+            this.runnable = runnable;
+            this.period = period;
+        }
+
+        private void run(Plugin plugin) {
+            long start = System.nanoTime();
+            try {
+                runnable.run();
+            } catch (Throwable throwable) {
+                plugin.getLogger().log(Level.WARNING, throwable, () -> "Error when running the task " + name);
+            }
+            long elapsed = System.nanoTime() - start;
+            runCount.incrementAndGet();
+            totalNanos.addAndGet(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+            if (elapsed > SLOW_RUN_NANOS) {
+                slowRunCount.incrementAndGet();
+                long now = System.nanoTime();
+                if (lastSlowRunReport == 0 || now - lastSlowRunReport >= SLOW_RUN_REPORT_INTERVAL) {
+                    lastSlowRunReport = now;
+                    plugin.getLogger().warning(() -> "The task " + name + " took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms, which delays the other tasks of the timer wheel");
+                }
+            }
+        }
+
+        /**
+         * Cancel the task and remove it from the {@link TimerWheel}
+         */
+        public void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                timerWheel.handles.remove(this);
+            }
+        }
+
+        /**
+         * Check if the task is cancelled
+         *
+         * @return true if it is
+         */
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * Get the name of the task
+         *
+         * @return the name
+         */
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the amount of runs
+         *
+         * @return the amount of runs
+         */
+        public long getRunCount() {
+            return runCount.get();
+        }
+
+        /**
+         * Get the total CPU time of the runs
+         *
+         * @return the total time in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        /**
+         * Get the longest run
+         *
+         * @return the longest time in nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * Get the amount of runs that take longer than {@link #SLOW_RUN_NANOS}
+         *
+         * @return the amount of slow runs
+         */
+        public long getSlowRunCount() {
+            return slowRunCount.get();
+        }
+
+        /**
+         * Get the amount of runs that are skipped because the previous run is not finished
+         *
+         * @return the amount of skipped runs
+         */
+        public long getSkippedRunCount() {
+            return skippedRunCount.get();
+        }
+    }
+}